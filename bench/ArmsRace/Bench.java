@@ -0,0 +1,101 @@
+package ArmsRace;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+/**
+ * A small microbenchmark harness. Each benchmark runs in batches: an untimed
+ * setup step prepares a batch, then a fixed number of operations is timed.
+ * Warmup iterations are discarded, measurement iterations report throughput
+ * and the number of bytes the benchmark thread allocated per operation, read
+ * from the JVM's per-thread allocation counter.
+ */
+final class Bench {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // results of operations are folded in here so they cannot be optimized away
+    static long sink;
+
+    private final int warmupIterations;
+    private final int iterations;
+    private final long iterationNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param warmupIterations: the number of discarded iterations
+     * @param iterations: the number of measured iterations
+     * @param iterationMillis: the length of each iteration
+     */
+    Bench(int warmupIterations, int iterations, long iterationMillis){
+        if (!THREADS.isThreadAllocatedMemorySupported()){
+            throw new IllegalStateException("This JVM cannot measure thread allocation.");
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    /**
+     * Measures one benchmark and prints its row of the report.
+     *
+     * @param name: the name of the benchmark
+     * @param param: the parameter the benchmark runs with
+     * @param batchSize: the number of operations per batch
+     * @param setup: run, untimed, before every batch
+     * @param op: the operation, given its index within the batch
+     */
+    void measure(String name, int param, int batchSize, Runnable setup, IntConsumer op){
+        for (int x = 0; x < warmupIterations; x++){
+            iteration(batchSize, setup, op);
+        }
+        double opsPerSecond = 0;
+        double bytesPerOp = 0;
+        for (int x = 0; x < iterations; x++){
+            double[] result = iteration(batchSize, setup, op);
+            opsPerSecond += result[0];
+            bytesPerOp += result[1];
+        }
+        opsPerSecond /= iterations;
+        bytesPerOp /= iterations;
+        double allocMBPerSecond = opsPerSecond * bytesPerOp / (1024 * 1024);
+
+        System.out.println(String.format("%-24s %6d %16.1f %12.1f %12.1f %12.2f",
+                name, param, opsPerSecond, 1e9 / opsPerSecond, bytesPerOp, allocMBPerSecond));
+    }
+
+    /** Prints the report header. */
+    static void printHeader(){
+        System.out.println(String.format("%-24s %6s %16s %12s %12s %12s",
+                "Benchmark", "opps", "ops/s", "ns/op", "B/op", "alloc MB/s"));
+    }
+
+    /**
+     * Runs batches until the iteration time is used up.
+     *
+     * @return {operations per second, bytes allocated per operation}
+     */
+    private double[] iteration(int batchSize, Runnable setup, IntConsumer op){
+        long elapsed = 0;
+        long allocated = 0;
+        long ops = 0;
+
+        while (elapsed < iterationNanos){
+            setup.run();
+            long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < batchSize; i++){
+                op.accept(i);
+            }
+            elapsed += System.nanoTime() - start;
+            allocated += THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+            ops += batchSize;
+        }
+
+        return new double[]{ ops * 1e9 / elapsed, (double) allocated / ops };
+    }
+
+}
@@ -0,0 +1,176 @@
+package ArmsRace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks for the hot paths of the turn loop, each run against games
+ * with several different numbers of opponents. Reports throughput and the
+ * allocation per operation, so that changes to the engine can be compared
+ * before and after.
+ *
+ * Build and run from the repository root:
+ *
+ *      javac -d out src/ArmsRace/*.java bench/ArmsRace/*.java
+ *      java -cp out ArmsRace.EngineBenchmark [options]
+ *
+ * Options:
+ *      -f regex    only run benchmarks whose name matches
+ *      -p 2,10     the opponent counts to run with
+ *      -wi n       warmup iterations (default 3)
+ *      -i n        measured iterations (default 5)
+ *      -t ms       length of an iteration (default 500)
+ */
+public class EngineBenchmark {
+
+	// CONSTANTS
+
+    private static final long SEED = 1000;
+    private static final int[] DEFAULT_OPPONENT_COUNTS = {2, 10, 100, 1000};
+
+    // turns played before measuring, so that every decision path is live
+    private static final int SETUP_TURNS = 6;
+
+	// STATE
+
+    private final Simulation sim;
+    private final List<Player> players;
+    private final String[] opponentNames;
+
+    /**
+     * Constructor. Sets up a game in progress.
+     *
+     * @param numOpponents: the number of opponents each Player has
+     */
+    private EngineBenchmark(int numOpponents){
+        ArrayList<String> names = new ArrayList<>();
+        for (int x = 0; x <= numOpponents; x++){
+            names.add("CPU" + x);
+        }
+        sim = new Simulation(names, SEED);
+        for (int x = 0; x < SETUP_TURNS; x++){
+            sim.playTurn();
+        }
+        players = sim.getPlayers();
+        opponentNames = names.subList(1, names.size()).toArray(new String[0]);
+    }
+
+    private void computerChooseDecision(Bench bench, int n){
+        bench.measure("computerChooseDecision", n, players.size(),
+                () -> {},
+                i -> players.get(i).computerChooseDecision(sim.getTurn()));
+    }
+
+    private void passTurn(Bench bench, int n){
+        // every Player needs fresh decisions before passing its turn
+        bench.measure("passTurn", n, players.size(),
+                () -> {
+                    for (Player p : players){
+                        p.computerChooseDecision(sim.getTurn());
+                    }
+                },
+                i -> players.get(i).passTurn());
+    }
+
+    private void updateEspionage(Bench bench, int n){
+        bench.measure("updateEspionage", n, players.size(),
+                () -> {},
+                i -> players.get(i).updateEspionage());
+    }
+
+    private void opponentLookup(Bench bench, int n){
+        Player first = players.get(0);
+        bench.measure("opponentLookup", n, opponentNames.length,
+                () -> {},
+                i -> Bench.sink += first.opponentLookup(opponentNames[i]).hashCode());
+    }
+
+    private void opponentLookupBySeat(Bench bench, int n){
+        Player first = players.get(0);
+        bench.measure("opponentLookupBySeat", n, opponentNames.length,
+                () -> {},
+                i -> Bench.sink += first.opponentLookup(i + 1).hashCode());
+    }
+
+    private void turn(Bench bench, int n){
+        bench.measure("turn", n, 1,
+                () -> {},
+                i -> sim.playTurn());
+    }
+
+    /** The weights do not depend on the number of opponents, so this runs once. */
+    private static void weightedSample(Bench bench){
+        GameRandom random = new GameRandom(SEED, 1);
+        double[] weights = {9.0, 4.0, 6.0, 1.0};
+        bench.measure("weightedSample", weights.length, 1,
+                () -> {},
+                i -> Bench.sink += WeightedSampler.sample(weights, 0, weights.length, random.nextDouble(0)));
+        WeightedSampler.AliasTable table = new WeightedSampler.AliasTable(weights, weights.length);
+        bench.measure("aliasSample", weights.length, 1,
+                () -> {},
+                i -> Bench.sink += table.sample(random.nextDouble(0)));
+    }
+
+    public static void main(String[] args){
+        Pattern filter = Pattern.compile(".*");
+        int[] counts = DEFAULT_OPPONENT_COUNTS;
+        int warmup = 3, iterations = 5, millis = 500;
+
+        for (int x = 0; x + 1 < args.length; x += 2){
+            switch (args[x]){
+                case "-f":
+                    filter = Pattern.compile(args[x + 1]);
+                    break;
+                case "-p":
+                    String[] parts = args[x + 1].split(",");
+                    counts = new int[parts.length];
+                    for (int y = 0; y < parts.length; y++){
+                        counts[y] = Integer.parseInt(parts[y].trim());
+                    }
+                    break;
+                case "-wi":
+                    warmup = Integer.parseInt(args[x + 1]);
+                    break;
+                case "-i":
+                    iterations = Integer.parseInt(args[x + 1]);
+                    break;
+                case "-t":
+                    millis = Integer.parseInt(args[x + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[x]);
+            }
+        }
+
+        Bench bench = new Bench(warmup, iterations, millis);
+        Bench.printHeader();
+
+        if (filter.matcher("weightedSample").find() || filter.matcher("aliasSample").find()){
+            weightedSample(bench);
+        }
+        for (int n : counts){
+            // a fresh game per benchmark, so one cannot skew the state of another
+            if (filter.matcher("computerChooseDecision").find()){
+                new EngineBenchmark(n).computerChooseDecision(bench, n);
+            }
+            if (filter.matcher("passTurn").find()){
+                new EngineBenchmark(n).passTurn(bench, n);
+            }
+            if (filter.matcher("updateEspionage").find()){
+                new EngineBenchmark(n).updateEspionage(bench, n);
+            }
+            if (filter.matcher("opponentLookup").find()){
+                new EngineBenchmark(n).opponentLookup(bench, n);
+            }
+            if (filter.matcher("opponentLookupBySeat").find()){
+                new EngineBenchmark(n).opponentLookupBySeat(bench, n);
+            }
+            if (filter.matcher("turn").find()){
+                new EngineBenchmark(n).turn(bench, n);
+            }
+        }
+        System.out.println("(sink " + Bench.sink + ")");
+    }
+
+}
@@ -0,0 +1,166 @@
+package ArmsRace;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test for the GameServer. Starts a server on a loopback port in this
+ * JVM, opens a number of idle connections that never get past the name
+ * prompt, then plays games with simulated humans that answer every prompt
+ * at random. Reports how long the games took, how many answers the server
+ * handled per second, and what the idle connections cost.
+ *
+ * Build and run from the repository root, on JDK 21 or later:
+ *
+ *      javac -d out src/ArmsRace/*.java bench/ArmsRace/*.java
+ *      java -cp out ArmsRace.ServerLoadTest [options]
+ *
+ * Options:
+ *      -idle n         idle connections held open (default 2000)
+ *      -clients n      simulated humans playing (default 200)
+ *      -humans n       humans per game (default 2)
+ *      -computers n    computers per game (default 2)
+ *      -turn ms        turn timeout, 0 for none (default 5000)
+ */
+public class ServerLoadTest {
+
+    private static final LongAdder answers = new LongAdder();
+    private static final LongAdder turns = new LongAdder();
+    private static final LongAdder games = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        int idle = 2000, clients = 200, humans = 2, computers = 2;
+        long turnMillis = 5000;
+        for (int x = 0; x + 1 < args.length; x += 2){
+            int value = Integer.parseInt(args[x + 1]);
+            switch (args[x]){
+                case "-idle": idle = value; break;
+                case "-clients": clients = value; break;
+                case "-humans": humans = value; break;
+                case "-computers": computers = value; break;
+                case "-turn": turnMillis = value; break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[x]);
+            }
+        }
+
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        List<String> opponents = new ArrayList<>();
+        for (int x = 0; x < 100; x++){
+            opponents.add("Computer" + name(x));
+        }
+
+        try (GameServer server = new GameServer(0, loopback, NameSource.of(opponents), humans, computers, 1000)){
+            server.setTurnTimeout(turnMillis);
+            server.start();
+            int port = server.getPort();
+
+            // idle connections: connect and never answer
+            long heapBefore = usedHeap();
+            List<Socket> idleSockets = new ArrayList<>();
+            for (int x = 0; x < idle; x++){
+                idleSockets.add(new Socket(loopback, port));
+            }
+            while (server.getConnections() < idle){
+                Thread.sleep(10);
+            }
+            long heapIdle = usedHeap() - heapBefore;
+            System.out.println(String.format("%d idle connections: %.1f KB heap each, %d platform threads",
+                    idle, heapIdle / 1024.0 / Math.max(1, idle), Thread.activeCount()));
+
+            // playing connections, each on its own virtual thread
+            long start = System.nanoTime();
+            Thread[] threads = new Thread[clients];
+            for (int x = 0; x < clients; x++){
+                final int client = x;
+                threads[x] = Thread.ofVirtual().start(() -> play(loopback, port, client));
+            }
+            for (Thread thread : threads){
+                thread.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.println(String.format("%d games, %d human turns, %d answers in %.2f s: %.0f answers/s",
+                    games.sum() / humans, turns.sum(), answers.sum(), seconds, answers.sum() / seconds));
+            System.out.println(String.format("server: %d games started, %d finished, %d connections open",
+                    server.getGamesStarted(), server.getGamesFinished(), server.getConnections()));
+
+            for (Socket socket : idleSockets){
+                socket.close();
+            }
+        }
+    }
+
+    /** A simulated human: answers every prompt at random until the game ends. */
+    private static void play(InetAddress address, int port, int client){
+        SplittableRandom rand = new SplittableRandom(client);
+        List<String> targets = new ArrayList<>();
+        try (Socket socket = new Socket(address, port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)){
+            boolean nuclear = false;
+            boolean readingTargets = false;
+            String line;
+            while ((line = in.readLine()) != null){
+                if (readingTargets){
+                    if (line.startsWith("---")){
+                        readingTargets = false;
+                    }else{
+                        targets.add(line);
+                    }
+                }else if (line.startsWith("Enter your country's name")){
+                    out.println("Client" + name(client));
+                }else if (line.contains("-TURN ")){
+                    turns.increment();
+                }else if (line.contains("NUCLEAR (3)")){
+                    nuclear = true;
+                }else if (line.equals("AVAILABLE TARGETS:")){
+                    targets.clear();
+                    readingTargets = true;
+                }else if (line.startsWith("Please choose your first action")){
+                    answer(out, Integer.toString(rand.nextInt(nuclear ? 4 : 3)));
+                }else if (line.startsWith("Please choose your second action")){
+                    answer(out, Integer.toString(rand.nextInt(3)));
+                }else if (line.startsWith("Please choose your target")){
+                    answer(out, targets.get(rand.nextInt(targets.size())));
+                }else if (line.equals("The game will now exit.")){
+                    games.increment();
+                    return;
+                }
+            }
+        } catch (IOException e){
+            System.err.println("Client " + client + " failed: " + e);
+        }
+    }
+
+    private static void answer(PrintWriter out, String word){
+        out.println(word);
+        answers.increment();
+    }
+
+    /** Turns a number into letters, as country names may only hold letters. */
+    private static String name(int number){
+        StringBuilder sb = new StringBuilder();
+        do {
+            sb.append((char) ('a' + number % 26));
+            number /= 26;
+        } while (number > 0);
+        return sb.toString();
+    }
+
+    private static long usedHeap(){
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+}
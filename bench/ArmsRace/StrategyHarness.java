@@ -0,0 +1,136 @@
+package ArmsRace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Rates Strategies against each other on cost and strength. Plays games
+ * between computers whose Strategies are dealt round the table, rotating
+ * by one seat every game so that no Strategy keeps the same seats, and
+ * reports for every Strategy how many decisions it makes per second of its
+ * own time and how often it wins.
+ *
+ * A Strategy that holds every seat it is dealt would win as often as its
+ * share of the seats by chance alone; the report shows that share next to
+ * the win rate.
+ *
+ * Build and run from the repository root:
+ *
+ *      javac -d out src/ArmsRace/*.java bench/ArmsRace/*.java
+ *      java -cp out ArmsRace.StrategyHarness [options]
+ *
+ * Options:
+ *      -s a,b      the Strategies to rate (default heuristic,random): heuristic,
+ *                  random, mcts for 50 ms a move, or mcts:n for n rollouts;
+ *                  heuristic:GENE=v;GENE=v for tuned constants
+ *      -games n    games to play (default 10000)
+ *      -players n  players per game (default 4)
+ *      -seed n     the seed game seeds are derived from (default 1000)
+ */
+public class StrategyHarness {
+
+    /** A Strategy that keeps count of its calls and of the time they take. */
+    private static final class Timed implements Strategy {
+
+        private final Strategy strategy;
+        private final Rating rating;
+
+        private Timed(Strategy strategy, Rating rating){
+            this.strategy = strategy;
+            this.rating = rating;
+        }
+
+        @Override
+        public void choose(GameView view, Choice choice){
+            long start = System.nanoTime();
+            strategy.choose(view, choice);
+            rating.nanos += System.nanoTime() - start;
+            rating.decisions++;
+        }
+
+        @Override
+        public String getName(){
+            return strategy.getName();
+        }
+    }
+
+    /** What one Strategy did over all the games. */
+    private static final class Rating {
+
+        final String name;
+        final Supplier<Strategy> factory;
+        long seatsPlayed = 0;
+        long decisions = 0;
+        long nanos = 0;
+        double wins = 0;
+        long sharedWins = 0;
+
+        Rating(String name, Supplier<Strategy> factory){
+            this.name = name;
+            this.factory = factory;
+        }
+    }
+
+    public static void main(String[] args){
+        String[] strategies = {"heuristic", "random"};
+        int games = 10000, players = 4;
+        long seed = 1000;
+        for (int x = 0; x + 1 < args.length; x += 2){
+            switch (args[x]){
+                case "-s": strategies = args[x + 1].split(","); break;
+                case "-games": games = Integer.parseInt(args[x + 1]); break;
+                case "-players": players = Integer.parseInt(args[x + 1]); break;
+                case "-seed": seed = Long.parseLong(args[x + 1]); break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[x]);
+            }
+        }
+
+        List<Rating> ratings = new ArrayList<>();
+        for (String name : strategies){
+            ratings.add(new Rating(name.trim(), Tournament.strategy(name.trim())));
+        }
+        List<String> names = new ArrayList<>();
+        for (int seat = 0; seat < players; seat++){
+            names.add("CPU" + seat);
+        }
+
+        long turns = 0, undecided = 0;
+        long start = System.nanoTime();
+        for (int game = 0; game < games; game++){
+            Simulation sim = new Simulation(names, Tournament.gameSeed(seed, game));
+            Rating[] dealt = new Rating[players];
+            for (int seat = 0; seat < players; seat++){
+                dealt[seat] = ratings.get((seat + game) % ratings.size());
+                dealt[seat].seatsPlayed++;
+                sim.setStrategy(seat, new Timed(dealt[seat].factory.get(), dealt[seat]));
+            }
+            SimulationResult result = sim.run();
+            turns += result.getTurns();
+            int[] winners = result.getWinnerSeats();
+            if (winners.length == 0){
+                undecided++;
+            }
+            for (int seat : winners){
+                dealt[seat].wins += 1.0 / winners.length;
+                if (winners.length > 1){
+                    dealt[seat].sharedWins++;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long seats = (long) games * players;
+        System.out.println(String.format("%d games of %d players in %.2f s, %.1f turns per game, %d undecided",
+                games, players, seconds, turns / (double) games, undecided));
+        System.out.println(String.format("%-12s %10s %10s %14s %10s",
+                "strategy", "win %", "by chance", "decisions/s", "shared"));
+        for (Rating r : ratings){
+            System.out.println(String.format("%-12s %9.2f%% %9.2f%% %14.0f %10d",
+                    r.name, 100.0 * r.wins / games, 100.0 * r.seatsPlayed / seats,
+                    r.decisions / (r.nanos / 1e9), r.sharedWins));
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+package ArmsRace;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A log Handler that never makes the logging thread wait for output. Records
+ * are handed to a bounded queue, and a single background thread formats
+ * them and writes them out through a buffer, flushing whenever the queue
+ * runs dry. If the queue is full the record is dropped and counted rather
+ * than stalling the game.
+ */
+public final class AsyncLogHandler extends Handler {
+
+	// CONSTANTS
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int BATCH_SIZE = 512;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // tells the writer thread to finish up
+    private static final LogRecord SHUTDOWN = new LogRecord(Level.OFF, "");
+
+	// STATE
+
+    private final BlockingQueue<LogRecord> queue;
+    private final Writer out;
+    private final boolean closeStream;
+    private final Thread writer;
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor. Writes to the given stream, which is flushed but left
+     * open when the handler is closed.
+     *
+     * @param out: where the formatted records go
+     */
+    public AsyncLogHandler(OutputStream out){
+        this(out, DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param out: where the formatted records go
+     * @param capacity: the number of records that can wait to be written
+     * @param closeStream: whether closing the handler closes the stream
+     */
+    public AsyncLogHandler(OutputStream out, int capacity, boolean closeStream){
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.closeStream = closeStream;
+        setFormatter(new GameEvent.LineFormatter());
+        this.writer = new Thread(this::drain, "ArmsRace-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record){
+        if (closed || !isLoggable(record)){
+            return;
+        }
+        if (!queue.offer(record)){
+            dropped.increment();
+        }
+    }
+
+    /** Returns the number of records dropped because the queue was full. */
+    public long getDropped(){
+        return dropped.sum();
+    }
+
+    /** Flushes whatever the writer thread has written so far. */
+    @Override
+    public void flush(){
+        synchronized (out){
+            try {
+                out.flush();
+            } catch (IOException e){
+                reportError(null, e, ErrorManager.FLUSH_FAILURE);
+            }
+        }
+    }
+
+    /**
+     * Writes out every record published before this call, then stops the
+     * writer thread. Records that were being published while the handler
+     * closed, and so got queued behind the shutdown, are written too.
+     */
+    @Override
+    public void close(){
+        if (closed){
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(SHUTDOWN);
+            writer.join();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        synchronized (out){
+            ArrayList<LogRecord> late = new ArrayList<>();
+            queue.drainTo(late);
+            for (LogRecord record : late){
+                write(record);
+            }
+            try {
+                if (closeStream){
+                    out.close();
+                }else{
+                    out.flush();
+                }
+            } catch (IOException e){
+                reportError(null, e, ErrorManager.CLOSE_FAILURE);
+            }
+        }
+    }
+
+    /** The writer thread: formats records in batches until shut down. */
+    private void drain(){
+        ArrayList<LogRecord> batch = new ArrayList<>(BATCH_SIZE);
+        while (true){
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e){
+                return;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+
+            boolean shutdown = false;
+            synchronized (out){
+                for (LogRecord record : batch){
+                    if (record == SHUTDOWN){
+                        shutdown = true;
+                    }else{
+                        write(record);
+                    }
+                }
+                if (queue.isEmpty()){
+                    flush();
+                }
+            }
+            if (shutdown){
+                // close() writes whatever was queued after the shutdown
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(LogRecord record){
+        try {
+            out.write(getFormatter().format(record));
+        } catch (IOException | RuntimeException e){
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+}
@@ -0,0 +1,365 @@
+package ArmsRace;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Saves and restores in-progress Simulations. A checkpoint holds the whole
+ * game: the GameState arrays, the position of every random stream, the
+ * attackers each Player still has to respond to, the knowledge matrix, and
+ * the order in which tied Players reached their scores.
+ *
+ * Checkpoints are streamed through a small buffer, a column or a matrix row
+ * at a time, so saving a game with thousands of Players never builds the
+ * file in memory. They are written next to their destination and moved into
+ * place once complete, so a crash while saving leaves the previous
+ * checkpoint intact.
+ */
+public final class Checkpoint {
+
+	// CONSTANTS
+
+    static final int GAME_MAGIC = 0x41524350; // "ARCP"
+    static final int TOURNAMENT_MAGIC = 0x41524354; // "ARCT"
+    static final byte VERSION = 5;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private Checkpoint(){}
+
+    /**
+     * Saves a game.
+     *
+     * @param sim: the game, between two turns
+     * @param file: where to save it; replaced if it exists
+     */
+    public static void save(Simulation sim, Path file) throws IOException {
+        try (Output out = Output.create(file)){
+            out.writeInt(GAME_MAGIC);
+            out.writeByte(VERSION);
+            write(sim, out);
+            out.commit();
+        }
+    }
+
+    /**
+     * Restores a game saved by save(). The game continues exactly as it
+     * would have if it had never been interrupted.
+     *
+     * @param file: a checkpoint written by save()
+     * @return the game, ready to be run on from where it was saved
+     */
+    public static Simulation load(Path file) throws IOException {
+        try (Input in = new Input(file)){
+            in.expectHeader(GAME_MAGIC);
+            return read(in);
+        }
+    }
+
+    private static void write(Simulation sim, Output out) throws IOException {
+        GameState state = sim.getState();
+        int size = state.size;
+
+        out.writeLong(state.seed);
+        out.writeInt(sim.getMaxTurns());
+        out.writeInt(state.turn);
+        out.writeInt(state.firstNukeTurn);
+        out.writeInt(size);
+        for (int seat = 0; seat < size; seat++){
+            out.writeString(state.names[seat]);
+        }
+
+        out.writeInts(state.researchPoints);
+        out.writeInts(state.turnsSinceLastEspionage);
+        out.writeInts(state.espionageLevel);
+        out.writeBytes(state.decisionOne);
+        out.writeBytes(state.decisionTwo);
+        out.writeBytes(state.outcomes);
+        out.writeInts(state.sabotageTargetOne);
+        out.writeInts(state.sabotageTargetTwo);
+        out.writeInts(state.nuclearTarget);
+
+        for (int stream = 0; stream < state.random.streams(); stream++){
+            out.writeLong(state.random.getState(stream));
+        }
+
+        for (int seat = 0; seat < size; seat++){
+            Player p = state.players[seat];
+            out.writeBits(p.recentlySabotagedBy);
+            out.writeBits(p.recentlyNukedBy);
+            out.writeBits(p.recentlyNukeFailedBy);
+        }
+
+        int[] lastKnown = new int[size];
+        int[] threat = new int[size];
+        for (int observer = 0; observer < size; observer++){
+            state.knowledge.getRow(observer, lastKnown, threat);
+            out.writeInts(lastKnown);
+            out.writeInts(threat);
+        }
+
+        // ties are broken by who got there first, which the points alone
+        // do not tell
+        out.writeLong(state.leaderboard.getClock());
+        for (int seat = 0; seat < size; seat++){
+            out.writeLong(state.leaderboard.getStamp(seat));
+        }
+    }
+
+    private static Simulation read(Input in) throws IOException {
+        long seed = in.readLong();
+        int maxTurns = in.readInt();
+        int turn = in.readInt();
+        int firstNukeTurn = in.readInt();
+        int size = in.readInt();
+        List<String> names = new ArrayList<>(size);
+        for (int seat = 0; seat < size; seat++){
+            names.add(in.readString());
+        }
+
+        Simulation sim = new Simulation(names, seed);
+        sim.setMaxTurns(maxTurns);
+        GameState state = sim.getState();
+        state.turn = turn;
+        state.firstNukeTurn = firstNukeTurn;
+
+        in.readInts(state.researchPoints);
+        in.readInts(state.turnsSinceLastEspionage);
+        in.readInts(state.espionageLevel);
+        in.readBytes(state.decisionOne);
+        in.readBytes(state.decisionTwo);
+        in.readBytes(state.outcomes);
+        in.readInts(state.sabotageTargetOne);
+        in.readInts(state.sabotageTargetTwo);
+        in.readInts(state.nuclearTarget);
+
+        for (int stream = 0; stream < state.random.streams(); stream++){
+            state.random.setState(stream, in.readLong());
+        }
+
+        for (int seat = 0; seat < size; seat++){
+            Player p = state.players[seat];
+            in.readBits(p.recentlySabotagedBy);
+            in.readBits(p.recentlyNukedBy);
+            in.readBits(p.recentlyNukeFailedBy);
+        }
+
+        int[] lastKnown = new int[size];
+        int[] threat = new int[size];
+        for (int observer = 0; observer < size; observer++){
+            in.readInts(lastKnown);
+            in.readInts(threat);
+            state.knowledge.setRow(observer, lastKnown, threat);
+        }
+
+        long clock = in.readLong();
+        long[] stamps = new long[size];
+        for (int seat = 0; seat < size; seat++){
+            stamps[seat] = in.readLong();
+        }
+        state.leaderboard.rebuild(state.researchPoints, turn, stamps, clock);
+        return sim;
+    }
+
+    /**
+     * Writes a checkpoint through a buffer into a temporary file, which
+     * replaces the destination on commit().
+     */
+    static final class Output implements Closeable {
+
+        private final Path file;
+        private final Path temp;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private boolean committed = false;
+
+        private Output(Path file, Path temp, FileChannel channel){
+            this.file = file;
+            this.temp = temp;
+            this.channel = channel;
+        }
+
+        static Output create(Path file) throws IOException {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            return new Output(file, temp, channel);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes){
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        void writeByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void writeBytes(byte[] values) throws IOException {
+            for (int x = 0; x < values.length; ){
+                ensure(1);
+                int count = Math.min(values.length - x, buffer.remaining());
+                buffer.put(values, x, count);
+                x += count;
+            }
+        }
+
+        void writeInts(int[] values) throws IOException {
+            for (int x = 0; x < values.length; ){
+                ensure(Integer.BYTES);
+                int count = Math.min(values.length - x, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, x, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                x += count;
+            }
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(utf8.length);
+            writeBytes(utf8);
+        }
+
+        void writeBits(BitSet bits) throws IOException {
+            long[] words = bits.toLongArray();
+            writeInt(words.length);
+            for (long word : words){
+                writeLong(word);
+            }
+        }
+
+        /** Makes the checkpoint durable and moves it into place. */
+        void commit() throws IOException {
+            drain();
+            channel.force(false);
+            channel.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed){
+                channel.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /** Reads a checkpoint through a buffer. */
+    static final class Input implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Input(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.flip();
+        }
+
+        void expectHeader(int magic) throws IOException {
+            if (readInt() != magic || readByte() != VERSION){
+                throw new IllegalArgumentException("Not a checkpoint of version " + VERSION + ".");
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes){
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes){
+                if (channel.read(buffer) < 0){
+                    throw new EOFException("Checkpoint ends early.");
+                }
+            }
+            buffer.flip();
+        }
+
+        byte readByte() throws IOException {
+            ensure(1);
+            return buffer.get();
+        }
+
+        int readInt() throws IOException {
+            ensure(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        long readLong() throws IOException {
+            ensure(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        void readBytes(byte[] values) throws IOException {
+            for (int x = 0; x < values.length; ){
+                ensure(1);
+                int count = Math.min(values.length - x, buffer.remaining());
+                buffer.get(values, x, count);
+                x += count;
+            }
+        }
+
+        void readInts(int[] values) throws IOException {
+            for (int x = 0; x < values.length; ){
+                ensure(Integer.BYTES);
+                int count = Math.min(values.length - x, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().get(values, x, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                x += count;
+            }
+        }
+
+        String readString() throws IOException {
+            byte[] utf8 = new byte[readInt()];
+            readBytes(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        void readBits(BitSet bits) throws IOException {
+            long[] words = new long[readInt()];
+            for (int x = 0; x < words.length; x++){
+                words[x] = readLong();
+            }
+            bits.clear();
+            bits.or(BitSet.valueOf(words));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+}
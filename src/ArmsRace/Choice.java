@@ -0,0 +1,87 @@
+package ArmsRace;
+
+/**
+ * The decisions a Strategy chose for one turn, and their targets. Targets
+ * are seats. A nuclear strike takes up both decisions.
+ */
+public final class Choice {
+
+	// STATE
+
+    private Model.Decision decisionOne;
+    private Model.Decision decisionTwo;
+    private int sabotageTargetOne;
+    private int sabotageTargetTwo;
+    private int nuclearTarget;
+
+    /** Constructor. Creates a Choice of RESEARCH, RESEARCH. */
+    public Choice(){
+        reset();
+    }
+
+    /** Goes back to RESEARCH, RESEARCH with no targets. */
+    void reset(){
+        decisionOne = Model.Decision.RESEARCH;
+        decisionTwo = Model.Decision.RESEARCH;
+        sabotageTargetOne = GameState.NO_TARGET;
+        sabotageTargetTwo = GameState.NO_TARGET;
+        nuclearTarget = GameState.NO_TARGET;
+    }
+
+    /**
+     * Sets both decisions.
+     *
+     * @param one: the first decision
+     * @param two: the second decision; NUCLEAR if and only if one is
+     */
+    public void setDecisions(Model.Decision one, Model.Decision two){
+        this.decisionOne = one;
+        this.decisionTwo = two;
+    }
+
+    /**
+     * Sets the targets of sabotage.
+     *
+     * @param one: the seat targeted by the first decision, if it sabotages
+     * @param two: the seat targeted by the second decision, if it sabotages
+     */
+    public void setSabotageTargets(int one, int two){
+        this.sabotageTargetOne = one;
+        this.sabotageTargetTwo = two;
+    }
+
+    /**
+     * Sets the target of a nuclear strike.
+     *
+     * @param target: the seat to strike
+     */
+    public void setNuclearTarget(int target){
+        this.nuclearTarget = target;
+    }
+
+    public Model.Decision getDecisionOne(){
+        return decisionOne;
+    }
+
+    public Model.Decision getDecisionTwo(){
+        return decisionTwo;
+    }
+
+    public int getSabotageTargetOne(){
+        return sabotageTargetOne;
+    }
+
+    public int getSabotageTargetTwo(){
+        return sabotageTargetTwo;
+    }
+
+    public int getNuclearTarget(){
+        return nuclearTarget;
+    }
+
+    @Override
+    public String toString(){
+        return decisionOne + "," + decisionTwo;
+    }
+
+}
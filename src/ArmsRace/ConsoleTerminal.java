@@ -0,0 +1,48 @@
+package ArmsRace;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+/**
+ * The terminal of the human playing at the console. Console input has no
+ * deadline: the game waits for as long as the human takes.
+ */
+public class ConsoleTerminal implements Terminal {
+
+    private final Scanner in = new Scanner(System.in);
+
+    @Override
+    public PrintStream out(){
+        return System.out;
+    }
+
+    @Override
+    public String next(long deadline) throws IOException {
+        System.out.flush();
+        try {
+            return in.next();
+        } catch (NoSuchElementException e){
+            throw new EOFException("The console was closed.");
+        }
+    }
+
+    /**
+     * Only a console that is a terminal, and says what kind, is trusted
+     * with escape sequences; output piped elsewhere gets plain text.
+     */
+    @Override
+    public boolean supportsAnsi(){
+        String term = System.getenv("TERM");
+        return System.console() != null && term != null && !term.equals("dumb");
+    }
+
+    /** Leaves System.in and System.out open. */
+    @Override
+    public void close(){
+        System.out.flush();
+    }
+
+}
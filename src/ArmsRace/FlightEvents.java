@@ -0,0 +1,139 @@
+package ArmsRace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the turn loop, so that a recording of a
+ * simulation run shows which phase of which turn a GC pause or an
+ * allocation spike fell in. Record with, for example:
+ *
+ *      java -XX:StartFlightRecording=filename=run.jfr -cp out ArmsRace.Tournament
+ *
+ * and look for the ArmsRace category in JDK Mission Control, or run
+ * "jfr print --events ArmsRace.Phase run.jfr". The events of single
+ * Players are many and off by default; add, for example,
+ * "+ArmsRace.Nuked#enabled=true" to the recording options to have them.
+ *
+ * While no recording is running, begin() and commit() do nothing and the
+ * JIT does away with the event objects. Every event is only filled in once
+ * shouldCommit() says it will be kept, and none is committed for games
+ * that are only played out to look ahead, see GameState.copy().
+ */
+final class FlightEvents {
+
+    private FlightEvents(){}
+
+    /** A phase of a turn, played by every Player. */
+    @Name("ArmsRace.Phase")
+    @Label("Turn Phase")
+    @Category("ArmsRace")
+    @StackTrace(false)
+    static final class Phase extends Event {
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Turn")
+        int turn;
+
+        @Label("Players")
+        int players;
+
+        /** Commits the event, unless the game is a lookahead. */
+        void commit(GameState state, GameMetrics.Phase phase){
+            if (!state.hypothetical && shouldCommit()){
+                this.phase = phase.name();
+                this.turn = state.turn;
+                this.players = state.size;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Something one Player did, with the decisions it made for the turn.
+     * There are several of these per Player per turn, so they are off
+     * unless a recording asks for them.
+     */
+    @Enabled(false)
+    abstract static class PlayerEvent extends Event {
+
+        @Label("Player")
+        String player;
+
+        @Label("Seat")
+        int seat;
+
+        @Label("Turn")
+        int turn;
+
+        @Label("Decision")
+        @Description("The Player's two decisions for the turn")
+        String decision;
+
+        /** Commits the event, unless the game is a lookahead. */
+        void commit(GameState state, int seat){
+            if (!state.hypothetical && shouldCommit()){
+                this.player = state.names[seat];
+                this.seat = seat;
+                this.turn = state.turn;
+                this.decision = state.getDecisionOne(seat) + "," + state.getDecisionTwo(seat);
+                commit();
+            }
+        }
+    }
+
+    @Name("ArmsRace.ComputerDecision")
+    @Label("Computer Decision")
+    @Category("ArmsRace")
+    @StackTrace(false)
+    static final class ComputerDecision extends PlayerEvent {}
+
+    @Name("ArmsRace.PassTurn")
+    @Label("Pass Turn")
+    @Category("ArmsRace")
+    @StackTrace(false)
+    static final class PassTurn extends PlayerEvent {}
+
+    /** An attack merged into its target; the Player is the target. */
+    abstract static class AttackEvent extends PlayerEvent {
+
+        @Label("Attacker")
+        String attacker;
+
+        /** Commits the event, unless the game is a lookahead. */
+        void commit(GameState state, int seat, int attackerSeat){
+            if (!state.hypothetical && shouldCommit()){
+                this.attacker = state.names[attackerSeat];
+                commit(state, seat);
+            }
+        }
+    }
+
+    @Name("ArmsRace.Nuked")
+    @Label("Nuked")
+    @Category("ArmsRace")
+    @StackTrace(false)
+    static final class Nuked extends AttackEvent {
+
+        @Label("Landed")
+        boolean landed;
+    }
+
+    @Name("ArmsRace.Sabotaged")
+    @Label("Sabotaged")
+    @Category("ArmsRace")
+    @StackTrace(false)
+    static final class Sabotaged extends AttackEvent {
+
+        @Label("Damage")
+        int damage;
+    }
+
+}
@@ -0,0 +1,144 @@
+package ArmsRace;
+
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * A structured record of something that happened in a game. The record only
+ * holds the values the event is about; the text of the event is not built
+ * until a handler formats it, which for the AsyncLogHandler happens on its
+ * own thread.
+ */
+public class GameEvent extends LogRecord {
+
+    private static final long serialVersionUID = 1L;
+
+    private final GameEvents.Type type;
+    private final int turn;
+    private final String actor;
+
+    // which of these are set depends on the type of the event
+    private String target;
+    private Model.Decision decisionOne;
+    private Model.Decision decisionTwo;
+    private int amount;
+    private boolean success;
+    private String[] names;
+    private int[] researchPoints;
+
+    GameEvent(GameEvents.Type type, int turn, String actor){
+        super(type.getLevel(), type.name());
+        this.type = type;
+        this.turn = turn;
+        this.actor = actor;
+        setLoggerName(Main.LOGGER.getName());
+    }
+
+    GameEvent target(String target){
+        this.target = target;
+        return this;
+    }
+
+    GameEvent decisions(Model.Decision decisionOne, Model.Decision decisionTwo){
+        this.decisionOne = decisionOne;
+        this.decisionTwo = decisionTwo;
+        return this;
+    }
+
+    GameEvent amount(int amount){
+        this.amount = amount;
+        return this;
+    }
+
+    GameEvent success(boolean success){
+        this.success = success;
+        return this;
+    }
+
+    GameEvent standings(String[] names, int[] researchPoints){
+        this.names = names;
+        this.researchPoints = researchPoints;
+        return this;
+    }
+
+    /** Returns what kind of event this is. */
+    public GameEvents.Type getType(){
+        return type;
+    }
+
+    /** Returns the turn the event happened in. */
+    public int getTurn(){
+        return turn;
+    }
+
+    /** Returns the name of the Player that caused the event, if any. */
+    public String getActor(){
+        return actor;
+    }
+
+    /** Returns the name of the Player the event was aimed at, if any. */
+    public String getTarget(){
+        return target;
+    }
+
+    /**
+     * Writes the event as key=value pairs.
+     *
+     * @param sb: the buffer to append to
+     */
+    public void appendTo(StringBuilder sb){
+        sb.append("turn=").append(turn).append(" event=").append(type);
+        switch (type){
+            case DECISION:
+                sb.append(" player=").append(actor)
+                        .append(" first=").append(decisionOne)
+                        .append(" second=").append(decisionTwo);
+                break;
+            case RESEARCH:
+                sb.append(" player=").append(actor).append(" success=").append(success);
+                break;
+            case ESPIONAGE:
+                sb.append(" player=").append(actor).append(" level=").append(amount);
+                break;
+            case SABOTAGE:
+                sb.append(" attacker=").append(actor).append(" target=").append(target)
+                        .append(" damage=").append(amount);
+                break;
+            case NUKE:
+                sb.append(" attacker=").append(actor).append(" target=").append(target)
+                        .append(" landed=").append(success).append(" damage=").append(amount);
+                break;
+            case TURN_SUMMARY:
+                for (int x = 0; x < names.length; x++){
+                    sb.append(' ').append(names[x]).append('=').append(researchPoints[x]);
+                }
+                break;
+        }
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder();
+        appendTo(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Formats GameEvents as one line of key=value pairs each, and any other
+     * record as its message.
+     */
+    public static class LineFormatter extends Formatter {
+
+        @Override
+        public String format(LogRecord record){
+            StringBuilder sb = new StringBuilder(128);
+            if (record instanceof GameEvent){
+                ((GameEvent) record).appendTo(sb);
+            }else{
+                sb.append(record.getLevel()).append(' ').append(formatMessage(record));
+            }
+            return sb.append(System.lineSeparator()).toString();
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package ArmsRace;
+
+import java.io.OutputStream;
+import java.util.logging.Level;
+
+import static ArmsRace.Main.LOGGER;
+
+/**
+ * Logs what happens in a game as structured GameEvents through Main.LOGGER.
+ * Every method first asks the logger whether its event type is enabled and
+ * returns straight away if not, before building anything, so that the turn
+ * loop pays a single level check per event while logging is off. Games
+ * that are only played out to look ahead, see GameState.copy(), never log.
+ */
+public final class GameEvents {
+
+    /** The kinds of events a game produces, and the level each is logged at. */
+    public enum Type {
+        TURN_SUMMARY(Level.FINE),
+        NUKE(Level.FINE),
+        SABOTAGE(Level.FINER),
+        DECISION(Level.FINER),
+        RESEARCH(Level.FINEST),
+        ESPIONAGE(Level.FINEST);
+
+        private final Level level;
+
+        Type(Level level){
+            this.level = level;
+        }
+
+        public Level getLevel(){
+            return level;
+        }
+    }
+
+    private GameEvents(){}
+
+    /**
+     * Sends game events of the given level and above to an AsyncLogHandler
+     * writing to the given stream, instead of to the default console handler.
+     *
+     * @param level: the finest level to log, or Level.OFF
+     * @param out: where the events are written
+     * @return the handler, which the caller should close at exit
+     */
+    public static AsyncLogHandler configure(Level level, OutputStream out){
+        AsyncLogHandler handler = new AsyncLogHandler(out);
+        handler.setLevel(level);
+        LOGGER.setUseParentHandlers(false);
+        LOGGER.addHandler(handler);
+        LOGGER.setLevel(level);
+        return handler;
+    }
+
+    /** Returns whether events of the given type are currently logged. */
+    public static boolean isEnabled(Type type){
+        return LOGGER.isLoggable(type.level);
+    }
+
+    /** A Player has chosen its decisions for the turn. */
+    static void decision(GameState state, int seat){
+        if (state.hypothetical || !LOGGER.isLoggable(Type.DECISION.level)){ return; }
+        LOGGER.log(new GameEvent(Type.DECISION, state.turn, state.names[seat])
+                .decisions(state.getDecisionOne(seat), state.getDecisionTwo(seat)));
+    }
+
+    /** A Player has spent an action on research. */
+    static void research(GameState state, int seat, boolean success){
+        if (state.hypothetical || !LOGGER.isLoggable(Type.RESEARCH.level)){ return; }
+        LOGGER.log(new GameEvent(Type.RESEARCH, state.turn, state.names[seat]).success(success));
+    }
+
+    /** A Player has spied on its opponents. */
+    static void espionage(GameState state, int seat, int level){
+        if (state.hypothetical || !LOGGER.isLoggable(Type.ESPIONAGE.level)){ return; }
+        LOGGER.log(new GameEvent(Type.ESPIONAGE, state.turn, state.names[seat]).amount(level));
+    }
+
+    /** A Player has sabotaged another. */
+    static void sabotage(GameState state, int attacker, int target, int damage){
+        if (state.hypothetical || !LOGGER.isLoggable(Type.SABOTAGE.level)){ return; }
+        LOGGER.log(new GameEvent(Type.SABOTAGE, state.turn, state.names[attacker])
+                .target(state.names[target]).amount(damage));
+    }
+
+    /** A Player has launched a nuclear strike against another. */
+    static void nuke(GameState state, int attacker, int target, boolean landed, int damage){
+        if (state.hypothetical || !LOGGER.isLoggable(Type.NUKE.level)){ return; }
+        LOGGER.log(new GameEvent(Type.NUKE, state.turn, state.names[attacker])
+                .target(state.names[target]).success(landed).amount(damage));
+    }
+
+    /**
+     * A turn has ended. The research points are copied, as the event may be
+     * formatted after the game has moved on.
+     */
+    static void turnSummary(GameState state){
+        if (state.hypothetical || !LOGGER.isLoggable(Type.TURN_SUMMARY.level)){ return; }
+        LOGGER.log(new GameEvent(Type.TURN_SUMMARY, state.turn, null)
+                .standings(state.names, state.researchPoints.clone()));
+    }
+
+}
@@ -0,0 +1,293 @@
+package ArmsRace;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts where the time of the turn loop goes: the turns resolved, the time
+ * spent in each phase of a turn, the decisions made, and the attacks
+ * carried out. Every count is a LongAdder, so games running in parallel
+ * never contend on a counter.
+ *
+ * Metrics are off until configure() is called, and while they are off each
+ * hook costs a single flag check. Games that are only played out to look
+ * ahead, see GameState.copy(), are never counted.
+ */
+public final class GameMetrics {
+
+    /** The phases of a turn that are timed. */
+    public enum Phase {
+        // the computers choosing their decisions
+        DECIDE,
+        // every Player passing the turn, and the attacks being merged
+        PASS_TURN,
+        // every Player updating what it knows of its opponents
+        ESPIONAGE,
+        // checking whether anybody has won
+        WIN_CHECK
+    }
+
+	// CONSTANTS
+
+    // e.g. -DArmsRace.metrics=10 to dump the metrics every 10 seconds
+    public static final String METRICS_PROPERTY = "ArmsRace.metrics";
+    public static final String OBJECT_NAME = "ArmsRace:type=GameMetrics";
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final Model.Decision[] DECISIONS = Model.Decision.values();
+
+	// STATE
+
+    private static volatile boolean enabled = false;
+    private static volatile long since = System.nanoTime();
+
+    private static final LongAdder turns = new LongAdder();
+    private static final LongAdder[] phaseNanos = adders(PHASES.length);
+    private static final LongAdder[] decisions = adders(DECISIONS.length);
+    private static final LongAdder nukeAttempts = new LongAdder();
+    private static final LongAdder nukesLanded = new LongAdder();
+    private static final LongAdder sabotages = new LongAdder();
+
+    private GameMetrics(){}
+
+    private static LongAdder[] adders(int count){
+        LongAdder[] adders = new LongAdder[count];
+        for (int x = 0; x < count; x++){
+            adders[x] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Turns the metrics on, registers them as an MXBean and, if asked to,
+     * prints a report to the given stream every period.
+     *
+     * @param periodSeconds: the seconds between reports, or 0 for none
+     * @param out: where the reports are printed
+     * @return the dump, which the caller should close at exit to stop it
+     *      and print a last report
+     */
+    public static Dump configure(long periodSeconds, PrintStream out){
+        reset();
+        enabled = true;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)){
+                server.registerMBean(new Bean(), name);
+            }
+        } catch (JMException e){
+            throw new IllegalStateException("Could not register the game metrics.", e);
+        }
+        return new Dump(periodSeconds, out);
+    }
+
+    /**
+     * Turns the metrics on if METRICS_PROPERTY is set.
+     *
+     * @param out: where the reports are printed
+     * @return the dump, or null if the metrics stay off
+     */
+    public static Dump configureFromProperty(PrintStream out){
+        String period = System.getProperty(METRICS_PROPERTY);
+        return period == null ? null : configure(Long.parseLong(period), out);
+    }
+
+    /** Returns whether the metrics are being collected. */
+    public static boolean isEnabled(){
+        return enabled;
+    }
+
+    /**
+     * Starts timing a phase.
+     *
+     * @param state: the game the phase belongs to
+     * @return the time the phase started, or 0 if it is not counted
+     */
+    static long begin(GameState state){
+        return enabled && !state.hypothetical ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Finishes timing a phase.
+     *
+     * @param phase: the phase
+     * @param start: what begin() returned
+     */
+    static void end(Phase phase, long start){
+        if (start != 0){
+            phaseNanos[phase.ordinal()].add(System.nanoTime() - start);
+        }
+    }
+
+    /** A turn has been resolved. */
+    static void turn(GameState state){
+        if (!enabled || state.hypothetical){ return; }
+        turns.increment();
+    }
+
+    /** A Player has chosen its decisions for the turn. */
+    static void decision(GameState state, int seat){
+        if (!enabled || state.hypothetical){ return; }
+        decisions[state.decisionOne[seat]].increment();
+        decisions[state.decisionTwo[seat]].increment();
+    }
+
+    /** A Player has been sabotaged. */
+    static void sabotage(GameState state){
+        if (!enabled || state.hypothetical){ return; }
+        sabotages.increment();
+    }
+
+    /** A Player has been the target of a nuclear strike. */
+    static void nuke(GameState state, boolean landed){
+        if (!enabled || state.hypothetical){ return; }
+        nukeAttempts.increment();
+        if (landed){
+            nukesLanded.increment();
+        }
+    }
+
+    /** Sets every count back to zero. */
+    public static void reset(){
+        turns.reset();
+        for (LongAdder adder : phaseNanos){
+            adder.reset();
+        }
+        for (LongAdder adder : decisions){
+            adder.reset();
+        }
+        nukeAttempts.reset();
+        nukesLanded.reset();
+        sabotages.reset();
+        since = System.nanoTime();
+    }
+
+    private static double turnsPerSecond(){
+        return turns.sum() / ((System.nanoTime() - since) / 1e9);
+    }
+
+    /** Returns the counts as a few lines of text. */
+    public static String report(){
+        long turnCount = turns.sum();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("turns: %d, %.0f turns/s%n", turnCount, turnsPerSecond()));
+
+        long total = 0;
+        for (LongAdder adder : phaseNanos){
+            total += adder.sum();
+        }
+        sb.append("phases:");
+        for (Phase phase : PHASES){
+            long nanos = phaseNanos[phase.ordinal()].sum();
+            sb.append(String.format(" %s %.0f ns/turn (%.1f%%)", phase,
+                    turnCount == 0 ? 0.0 : nanos / (double) turnCount,
+                    total == 0 ? 0.0 : 100.0 * nanos / total));
+        }
+        sb.append(String.format("%ndecisions:"));
+        for (Model.Decision decision : DECISIONS){
+            if (decision != Model.Decision.NONE){
+                sb.append(' ').append(decision).append(' ').append(decisions[decision.ordinal()].sum());
+            }
+        }
+        sb.append(String.format("%nnukes: %d launched, %d landed; sabotages: %d",
+                nukeAttempts.sum(), nukesLanded.sum(), sabotages.sum()));
+        return sb.toString();
+    }
+
+    /** Prints the report every period on a daemon thread of its own. */
+    public static final class Dump implements Closeable {
+
+        private final PrintStream out;
+        private final ScheduledExecutorService timer;
+
+        private Dump(long periodSeconds, PrintStream out){
+            this.out = out;
+            if (periodSeconds > 0){
+                timer = Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().daemon().name("ArmsRace-metrics").factory());
+                timer.scheduleAtFixedRate(() -> out.println(report()),
+                        periodSeconds, periodSeconds, TimeUnit.SECONDS);
+            }else{
+                timer = null;
+            }
+        }
+
+        /** Stops the reports, and prints a last one. */
+        @Override
+        public void close(){
+            if (timer != null){
+                timer.shutdownNow();
+            }
+            out.println(report());
+        }
+    }
+
+    /** The MXBean, a view of the static counts. */
+    private static final class Bean implements GameMetricsMXBean {
+
+        @Override
+        public long getTurns(){
+            return turns.sum();
+        }
+
+        @Override
+        public double getTurnsPerSecond(){
+            return turnsPerSecond();
+        }
+
+        @Override
+        public Map<String, Long> getPhaseNanos(){
+            Map<String, Long> map = new LinkedHashMap<>();
+            for (Phase phase : PHASES){
+                map.put(phase.name(), phaseNanos[phase.ordinal()].sum());
+            }
+            return map;
+        }
+
+        @Override
+        public Map<String, Long> getDecisions(){
+            Map<String, Long> map = new LinkedHashMap<>();
+            for (Model.Decision decision : DECISIONS){
+                map.put(decision.name(), decisions[decision.ordinal()].sum());
+            }
+            return map;
+        }
+
+        @Override
+        public long getNukeAttempts(){
+            return nukeAttempts.sum();
+        }
+
+        @Override
+        public long getNukesLanded(){
+            return nukesLanded.sum();
+        }
+
+        @Override
+        public long getSabotages(){
+            return sabotages.sum();
+        }
+
+        @Override
+        public String getReport(){
+            return report();
+        }
+
+        @Override
+        public void reset(){
+            GameMetrics.reset();
+        }
+    }
+
+}
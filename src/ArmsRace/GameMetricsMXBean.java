@@ -0,0 +1,39 @@
+package ArmsRace;
+
+import java.util.Map;
+
+/**
+ * The management interface of GameMetrics, registered with the platform
+ * MBean server as ArmsRace:type=GameMetrics. Counts cover every game played
+ * in the JVM since the metrics were enabled or last reset.
+ */
+public interface GameMetricsMXBean {
+
+    /** Returns the number of turns resolved. */
+    long getTurns();
+
+    /** Returns the average number of turns resolved per second. */
+    double getTurnsPerSecond();
+
+    /** Returns the nanoseconds spent in each phase of the turn, by phase. */
+    Map<String, Long> getPhaseNanos();
+
+    /** Returns the number of times each decision was made, by decision. */
+    Map<String, Long> getDecisions();
+
+    /** Returns the number of nuclear strikes launched. */
+    long getNukeAttempts();
+
+    /** Returns the number of nuclear strikes that landed. */
+    long getNukesLanded();
+
+    /** Returns the number of sabotage actions carried out. */
+    long getSabotages();
+
+    /** Returns the report the periodic dump prints. */
+    String getReport();
+
+    /** Sets every count back to zero. */
+    void reset();
+
+}
@@ -0,0 +1,113 @@
+package ArmsRace;
+
+/**
+ * The random number generators of a game: one independent SplitMix64 stream
+ * per Player and per purpose, all derived from a single seed. Since every
+ * stream depends only on the seed, the seat and the purpose, a game plays
+ * out the same no matter in what order its Players were created, which
+ * thread runs it, or how many other games run beside it.
+ *
+ * The state of every stream is one long in a flat array, so generating a
+ * number is a plain read, add and write without any atomic operation, and
+ * the exact position of every stream can be saved and restored.
+ */
+public final class GameRandom {
+
+	// CONSTANTS
+
+    /** What a stream is used for. Each Player has one stream per purpose. */
+    public enum Purpose {DECISION, RESEARCH, SABOTAGE, NUKE, ESPIONAGE}
+
+    static final int PURPOSES = Purpose.values().length;
+
+    // the SplitMix64 increment, the golden ratio in fixed point
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	// STATE
+
+    private final long[] state;
+
+    /**
+     * Constructor.
+     *
+     * @param seed: the seed of the game
+     * @param size: the number of seats in the game
+     */
+    GameRandom(long seed, int size){
+        state = new long[size * PURPOSES];
+        for (int x = 0; x < state.length; x++){
+            state[x] = derive(seed, x);
+        }
+    }
+
+    /**
+     * Derives an independent seed from a base seed and an index. The mixing
+     * step keeps neighbouring indices from getting correlated seeds.
+     */
+    static long derive(long seed, long index){
+        return mix(seed + (index + 1) * GOLDEN_GAMMA);
+    }
+
+    /** The SplitMix64 finalizer. */
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Returns the index of the stream a seat uses for a purpose. */
+    static int stream(int seat, Purpose purpose){
+        return seat * PURPOSES + purpose.ordinal();
+    }
+
+    /** Returns the number of streams. */
+    int streams(){
+        return state.length;
+    }
+
+    /** Returns the next 64 random bits of a stream. */
+    long nextLong(int stream){
+        return mix(state[stream] += GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns a random int between 0 (inclusive) and bound (exclusive). The
+     * bias of the multiply-shift reduction is at most bound / 2^32.
+     */
+    int nextInt(int stream, int bound){
+        return (int) (((nextLong(stream) >>> 32) * bound) >>> 32);
+    }
+
+    /** Returns a random double between 0 (inclusive) and 1 (exclusive). */
+    double nextDouble(int stream){
+        return (nextLong(stream) >>> 11) * 0x1.0p-53;
+    }
+
+    /** Returns the position of a stream. */
+    long getState(int stream){
+        return state[stream];
+    }
+
+    /** Moves a stream to a position returned by getState(). */
+    void setState(int stream, long value){
+        state[stream] = value;
+    }
+
+    /**
+     * Restarts every stream from a new seed, as if the game had been
+     * created with it.
+     *
+     * @param seed: the new seed
+     */
+    void reseed(long seed){
+        for (int x = 0; x < state.length; x++){
+            state[x] = derive(seed, x);
+        }
+    }
+
+    /** Moves every stream to where the streams of another game are. */
+    void copyFrom(GameRandom other){
+        System.arraycopy(other.state, 0, state, 0, state.length);
+    }
+
+}
@@ -0,0 +1,281 @@
+package ArmsRace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts games over TCP. Every connection is served by a virtual thread of
+ * its own, which asks the human for their country's name and then puts them
+ * in the lobby. As soon as the lobby holds enough humans, they are seated
+ * in a new game together with computer opponents, and the game runs on a
+ * virtual thread of its own.
+ *
+ * The protocol is the console game's text, line by line. Since every
+ * waiting human only costs a blocked virtual thread, a single JVM can hold
+ * thousands of idle connections.
+ */
+public class GameServer implements Closeable {
+
+	// CONSTANTS
+
+    public static final int DEFAULT_PORT = 7460;
+
+	// STATE
+
+    private final ServerSocket server;
+    private final NameSource opponentNames;
+    private final int humansPerGame;
+    private final int computersPerGame;
+    private final long seed;
+    private long turnTimeoutMillis = 0;
+
+    // humans who have named their country and are waiting for a game
+    private final ArrayList<SocketTerminal> lobby = new ArrayList<>();
+    private final ArrayList<String> lobbyNames = new ArrayList<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong gamesStarted = new AtomicLong();
+    private final AtomicLong gamesFinished = new AtomicLong();
+    private volatile boolean closed = false;
+    private Thread acceptor;
+
+    /**
+     * Constructor. Binds the server socket; call start() to accept
+     * connections.
+     *
+     * @param port: the port to listen on, or 0 for any free port
+     * @param bindAddress: the address to listen on, or null for all
+     * @param opponentNames: the names computer opponents are picked from;
+     *      computers get generated names once these run out
+     * @param humansPerGame: the number of humans seated in every game
+     * @param computersPerGame: the number of computers seated in every game
+     * @param seed: the seed the seed of every game is derived from
+     */
+    public GameServer(int port, InetAddress bindAddress, NameSource opponentNames,
+                      int humansPerGame, int computersPerGame, long seed) throws IOException {
+        if (humansPerGame < 1 || humansPerGame + computersPerGame < 2){
+            throw new IllegalArgumentException("A game needs a human and at least one opponent.");
+        }
+        this.server = new ServerSocket(port, 1024, bindAddress);
+        this.opponentNames = opponentNames;
+        this.humansPerGame = humansPerGame;
+        this.computersPerGame = computersPerGame;
+        this.seed = seed;
+    }
+
+    /**
+     * Gives every human a limited time to choose their actions each turn,
+     * see Model.setTurnTimeout().
+     *
+     * @param millis: the time per turn, or 0 to wait for as long as it takes
+     */
+    public void setTurnTimeout(long millis){
+        this.turnTimeoutMillis = millis;
+    }
+
+    /** Starts accepting connections, on a thread of its own. */
+    public synchronized void start(){
+        if (acceptor == null){
+            acceptor = Thread.ofVirtual().name("ArmsRace-acceptor").start(this::accept);
+        }
+    }
+
+    private void accept(){
+        while (!closed){
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e){
+                if (closed){
+                    return;
+                }
+                continue;
+            }
+            Thread.ofVirtual().name("ArmsRace-session").start(() -> serve(socket));
+        }
+    }
+
+    /** Greets a new connection and puts the human in the lobby. */
+    private void serve(Socket socket){
+        connections.incrementAndGet();
+        SocketTerminal terminal = null;
+        try {
+            terminal = new SocketTerminal(socket);
+            terminal.out().println("Welcome to the AI Arms Race.");
+            String name = null;
+            while (name == null){
+                terminal.out().println("Enter your country's name: ");
+                name = terminal.next(Terminal.NO_DEADLINE);
+                if (!name.matches("[a-zA-Z]+")){
+                    terminal.out().println("Invalid name. Please choose a name with only alphabetical characters.");
+                    name = null;
+                }
+            }
+            terminal.out().println("Waiting for opponents...");
+            terminal.out().flush();
+            join(terminal, name);
+        } catch (IOException e){
+            connections.decrementAndGet();
+            closeQuietly(terminal != null ? terminal : socket);
+        }
+    }
+
+    /** Adds a human to the lobby, and starts a game once it is full. */
+    private void join(SocketTerminal terminal, String name){
+        List<SocketTerminal> humans;
+        List<String> names;
+        synchronized (lobby){
+            lobby.add(terminal);
+            lobbyNames.add(name);
+            if (lobby.size() < humansPerGame){
+                return;
+            }
+            humans = new ArrayList<>(lobby);
+            names = new ArrayList<>(lobbyNames);
+            lobby.clear();
+            lobbyNames.clear();
+        }
+        long game = gamesStarted.getAndIncrement();
+        Thread.ofVirtual().name("ArmsRace-game-" + game).start(() -> play(humans, names, game));
+    }
+
+    /** Plays a game between the given humans and computer opponents. */
+    private void play(List<SocketTerminal> humans, List<String> humanNames, long game){
+        long gameSeed = GameRandom.derive(seed, game);
+        SplittableRandom rand = new SplittableRandom(gameSeed);
+
+        // names must be unique within a game, as humans target by name
+        Set<String> taken = new HashSet<>();
+        List<String> names = new ArrayList<>();
+        for (String name : humanNames){
+            String unique = name;
+            for (int x = 2; !taken.add(unique); x++){
+                unique = name + x;
+            }
+            names.add(unique);
+        }
+        // a human may have taken a name that is drawn, so draw one spare
+        // per human
+        for (String name : opponentNames.pick(computersPerGame + names.size(), rand, null)){
+            if (names.size() == humanNames.size() + computersPerGame){
+                break;
+            }
+            if (taken.add(name)){
+                names.add(name);
+            }
+        }
+        opponentNames.fill(names, humanNames.size() + computersPerGame);
+
+        Terminal[] terminals = new Terminal[names.size()];
+        for (int x = 0; x < humans.size(); x++){
+            terminals[x] = humans.get(x);
+        }
+        try {
+            Model model = new Model(names, terminals, gameSeed);
+            model.setTurnTimeout(turnTimeoutMillis);
+            model.runGame();
+        } finally {
+            for (SocketTerminal terminal : humans){
+                closeQuietly(terminal);
+                connections.decrementAndGet();
+            }
+            gamesFinished.incrementAndGet();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable){
+        try {
+            closeable.close();
+        } catch (IOException ignored){
+            // nothing left to do with it
+        }
+    }
+
+    /** Returns the port the server listens on. */
+    public int getPort(){
+        return server.getLocalPort();
+    }
+
+    /** Returns the number of humans connected, in the lobby or in a game. */
+    public int getConnections(){
+        return connections.get();
+    }
+
+    /** Returns the number of humans waiting in the lobby. */
+    public int getWaiting(){
+        synchronized (lobby){
+            return lobby.size();
+        }
+    }
+
+    /** Returns the number of games started so far. */
+    public long getGamesStarted(){
+        return gamesStarted.get();
+    }
+
+    /** Returns the number of games that have ended. */
+    public long getGamesFinished(){
+        return gamesFinished.get();
+    }
+
+    /**
+     * Stops accepting connections and sends the humans in the lobby home.
+     * Games in progress play on.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        synchronized (lobby){
+            for (SocketTerminal terminal : lobby){
+                closeQuietly(terminal);
+            }
+            lobby.clear();
+            lobbyNames.clear();
+        }
+    }
+
+    /**
+     * Runs a server until the process is killed.
+     *
+     * @param args: [port] [humans per game] [computers per game]
+     *      [seconds per turn] [file of opponent names, one per line]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int humans = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int computers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        long turnSeconds = args.length > 3 ? Long.parseLong(args[3]) : 60;
+
+        Path opponentFile = Paths.get(args.length > 4 ? args[4] : "resources/opponents.txt");
+
+        NameSource opponents;
+        try {
+            opponents = NameSource.load(opponentFile);
+        } catch (IOException e){
+            // every opponent gets a generated name instead
+            System.err.println("Could not read " + opponentFile + ": " + e);
+            opponents = NameSource.empty();
+        }
+
+        GameServer server = new GameServer(port, null, opponents, humans, computers, System.nanoTime());
+        server.setTurnTimeout(turnSeconds * 1000);
+        server.start();
+        System.out.println(String.format("Listening on port %d: %d humans and %d computers per game.",
+                server.getPort(), humans, computers));
+        Thread.currentThread().join();
+    }
+
+}
@@ -0,0 +1,231 @@
+package ArmsRace;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The State of every Player in a game, stored as parallel arrays indexed by
+ * seat instead of as fields scattered over one object per Player. Phases of
+ * a turn that touch every Player, such as passing the turn or looking for a
+ * winner, then walk these arrays from front to back, which keeps large games
+ * cache-friendly.
+ *
+ * Player objects are views onto one seat of a GameState; the arrays are
+ * package-private so that the engine can sweep them directly.
+ */
+public class GameState {
+
+	// CONSTANTS
+
+    /** Marks a target that has not been chosen. */
+    static final int NO_TARGET = -1;
+
+    // bits of outcomes: how the random parts of a Player's turn came out
+    static final byte RESEARCH_ONE_SUCCEEDED = 1;
+    static final byte RESEARCH_TWO_SUCCEEDED = 1 << 1;
+    static final byte SABOTAGE_ONE_HEAVY = 1 << 2;
+    static final byte SABOTAGE_TWO_HEAVY = 1 << 3;
+    static final byte NUKE_LANDED = 1 << 4;
+
+    private static final Model.Decision[] DECISIONS = Model.Decision.values();
+    private static final byte NONE = (byte) Model.Decision.NONE.ordinal();
+
+	// STATE
+
+    // the turn being played, 0 before the first
+    int turn = 0;
+
+    // set on copies that are only played out to look ahead; see copy()
+    boolean hypothetical = false;
+
+    // the turn the first nuke of the game was launched on, 0 if none yet
+    int firstNukeTurn = 0;
+
+    final int size;
+    final String[] names;
+    final boolean[] computer;
+
+    // research points as of the start of the turn being resolved, and the
+    // buffer the turn's results are written into; see TurnResolver
+    int[] researchPoints;
+    int[] nextResearchPoints;
+    final int[] turnsSinceLastEspionage;
+    final int[] espionageLevel;
+
+    // decisions are stored as Decision ordinals
+    final byte[] decisionOne;
+    final byte[] decisionTwo;
+
+    // targets are stored as seats, or NO_TARGET
+    final int[] sabotageTargetOne;
+    final int[] sabotageTargetTwo;
+    final int[] nuclearTarget;
+
+    // what happened when each Player last passed its turn, see above
+    final byte[] outcomes;
+
+    // the batched computers' decision weights, Strategy.BATCH_WEIGHTS per
+    // seat; only used while TurnResolver chooses, so never copied
+    final double[] decisionWeights;
+
+    // what every Player knows about every other Player
+    final KnowledgeMatrix knowledge;
+
+    // every Player's random streams, derived from the seed of the game
+    final long seed;
+    final GameRandom random;
+
+    // the Player viewing each seat; Players register themselves here
+    final Player[] players;
+
+    // the seats ranked by research points, kept up to date by TurnResolver
+    final Leaderboard leaderboard;
+
+    /**
+     * Constructor. Creates the State of a game that has not started yet.
+     *
+     * @param names: the name of the Player in each seat
+     * @param computer: whether the Player in each seat is a computer
+     * @param seed: the seed all randomness in the game is derived from
+     */
+    public GameState(List<String> names, boolean[] computer, long seed){
+        if (names.size() != computer.length){
+            throw new IllegalArgumentException("Every seat needs a name and a controller.");
+        }
+        this.size = names.size();
+        this.names = names.toArray(new String[0]);
+        this.computer = computer.clone();
+
+        researchPoints = new int[size];
+        nextResearchPoints = new int[size];
+        turnsSinceLastEspionage = new int[size];
+        espionageLevel = new int[size];
+        decisionOne = new byte[size];
+        decisionTwo = new byte[size];
+        sabotageTargetOne = new int[size];
+        sabotageTargetTwo = new int[size];
+        nuclearTarget = new int[size];
+        outcomes = new byte[size];
+        decisionWeights = new double[size * Strategy.BATCH_WEIGHTS];
+        knowledge = KnowledgeMatrix.create(size, Player.BASE_THREAT);
+        this.seed = seed;
+        random = new GameRandom(seed, size);
+        players = new Player[size];
+        leaderboard = new Leaderboard(size, seed);
+
+        Arrays.fill(decisionOne, NONE);
+        Arrays.fill(decisionTwo, NONE);
+        Arrays.fill(sabotageTargetOne, NO_TARGET);
+        Arrays.fill(sabotageTargetTwo, NO_TARGET);
+        Arrays.fill(nuclearTarget, NO_TARGET);
+    }
+
+    /** Returns the number of seats in the game. */
+    public int size(){
+        return size;
+    }
+
+    /** Returns the turn being played, or 0 if the game has not started. */
+    public int getTurn(){
+        return turn;
+    }
+
+    /** Returns the seed the game was created with. */
+    public long getSeed(){
+        return seed;
+    }
+
+    /** Returns the name of the Player in the given seat. */
+    public String getName(int seat){
+        return names[seat];
+    }
+
+    /** Returns whether the Player in the given seat is a computer. */
+    public boolean isComputer(int seat){
+        return computer[seat];
+    }
+
+    /** Returns the Player in the given seat. */
+    public Player getPlayer(int seat){
+        return players[seat];
+    }
+
+    /** Returns the research points of the Player in the given seat. */
+    public int getResearchPoints(int seat){
+        return researchPoints[seat];
+    }
+
+    /** Returns the first decision of the Player in the given seat. */
+    public Model.Decision getDecisionOne(int seat){
+        return DECISIONS[decisionOne[seat]];
+    }
+
+    /** Returns the second decision of the Player in the given seat. */
+    public Model.Decision getDecisionTwo(int seat){
+        return DECISIONS[decisionTwo[seat]];
+    }
+
+    /** Makes the next-turn buffer the current research points. */
+    void swapResearchPoints(){
+        int[] current = researchPoints;
+        researchPoints = nextResearchPoints;
+        nextResearchPoints = current;
+    }
+
+    /**
+     * Creates a copy of this game to look ahead in, with Players of its
+     * own. Every seat of the copy is a computer using the default Strategy,
+     * and nothing that happens in the copy is logged.
+     */
+    GameState copy(){
+        boolean[] computers = new boolean[size];
+        Arrays.fill(computers, true);
+        GameState copy = new GameState(Arrays.asList(names), computers, seed);
+        copy.hypothetical = true;
+        for (int seat = 0; seat < size; seat++){
+            new Player(copy, seat);
+        }
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Makes this game, made by copy(), the same as another game again. Only
+     * arrays are copied, so a copy can be reset for every look ahead.
+     *
+     * @param other: a game with the same seats
+     */
+    void copyFrom(GameState other){
+        if (other.size != size){
+            throw new IllegalArgumentException("Only a game with the same seats can be copied.");
+        }
+        turn = other.turn;
+        firstNukeTurn = other.firstNukeTurn;
+        System.arraycopy(other.researchPoints, 0, researchPoints, 0, size);
+        System.arraycopy(other.turnsSinceLastEspionage, 0, turnsSinceLastEspionage, 0, size);
+        System.arraycopy(other.espionageLevel, 0, espionageLevel, 0, size);
+        System.arraycopy(other.decisionOne, 0, decisionOne, 0, size);
+        System.arraycopy(other.decisionTwo, 0, decisionTwo, 0, size);
+        System.arraycopy(other.sabotageTargetOne, 0, sabotageTargetOne, 0, size);
+        System.arraycopy(other.sabotageTargetTwo, 0, sabotageTargetTwo, 0, size);
+        System.arraycopy(other.nuclearTarget, 0, nuclearTarget, 0, size);
+        System.arraycopy(other.outcomes, 0, outcomes, 0, size);
+        knowledge.copyFrom(other.knowledge);
+        random.copyFrom(other.random);
+        leaderboard.copyFrom(other.leaderboard);
+        for (int seat = 0; seat < size; seat++){
+            players[seat].copyFrom(other.players[seat]);
+        }
+    }
+
+    /** Returns the standings of the game. */
+    public Leaderboard getLeaderboard(){
+        return leaderboard;
+    }
+
+    /** Returns the highest research score in the game. */
+    public int getMaxResearchPoints(){
+        return leaderboard.getMaxResearchPoints();
+    }
+
+}
@@ -0,0 +1,96 @@
+package ArmsRace;
+
+/**
+ * A read-only view of a game, as one Player sees it: its own research
+ * points and espionage, and what it knows of its opponents. Strategies
+ * choose their decisions from this alone.
+ *
+ * The view also hands out random numbers from the Player's own decision
+ * stream, so that games played with a Strategy stay reproducible from
+ * their seed.
+ */
+public final class GameView {
+
+	// STATE
+
+    private final GameState state;
+    private final int seat;
+    private final int stream;
+
+    /**
+     * Constructor.
+     *
+     * @param state: the game
+     * @param seat: the seat of the Player looking at it
+     */
+    GameView(GameState state, int seat){
+        this.state = state;
+        this.seat = seat;
+        this.stream = GameRandom.stream(seat, GameRandom.Purpose.DECISION);
+    }
+
+    /** Returns the seat of the Player looking at the game. */
+    public int getSeat(){
+        return seat;
+    }
+
+    /** Returns the number of seats in the game. */
+    public int size(){
+        return state.size;
+    }
+
+    /** Returns the turn being played. */
+    public int getTurn(){
+        return state.turn;
+    }
+
+    /** Returns whether a nuclear strike may be chosen this turn. */
+    public boolean isNuclearAvailable(){
+        return state.turn >= Player.TURN_NUCLEAR_AVAILABLE;
+    }
+
+    /** Returns the name of the Player in the given seat. */
+    public String getName(int seat){
+        return state.names[seat];
+    }
+
+    /** Returns the Player's own research points. */
+    public int getResearchPoints(){
+        return state.researchPoints[seat];
+    }
+
+    /** Returns the number of turns since the Player last spied. */
+    public int getTurnsSinceLastEspionage(){
+        return state.turnsSinceLastEspionage[seat];
+    }
+
+    /** Returns the research points an opponent had when last seen. */
+    public int getLastKnown(int opponent){
+        return state.knowledge.getLastKnown(seat, opponent);
+    }
+
+    /** Returns how much of a threat the Player considers an opponent. */
+    public int getThreat(int opponent){
+        return state.knowledge.getThreat(seat, opponent);
+    }
+
+    /** Returns a random number in [0, 1) from the Player's decision stream. */
+    public double nextRandom(){
+        return state.random.nextDouble(stream);
+    }
+
+    /** Returns 64 random bits from the Player's decision stream. */
+    public long nextLong(){
+        return state.random.nextLong(stream);
+    }
+
+    /**
+     * Returns the game itself, for Strategies that look ahead in a copy of
+     * it. Such a Strategy must only put into the copy what the Player
+     * knows; see MctsStrategy.
+     */
+    GameState getState(){
+        return state;
+    }
+
+}
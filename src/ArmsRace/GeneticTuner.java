@@ -0,0 +1,287 @@
+package ArmsRace;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Evolves the constants of the HeuristicStrategy. A population of
+ * HeuristicGenomes is rated by self-play: every genome plays the same set
+ * of seeded headless games, seated once per game among opponents that use
+ * the default constants, and its fitness is its share of the wins. The
+ * fittest genomes are carried over, and the rest of the next generation is
+ * bred from them by tournament selection, uniform crossover and mutation.
+ *
+ * Every game is determined by its genome and its seed, so results are
+ * cached by the two: a genome that survives into the next generation, or
+ * comes up twice, is never played again. The games of a generation are
+ * spread across a fork/join pool.
+ *
+ * RESEARCH_DIVISOR is not part of the genome: it sets the odds of research
+ * for everybody, and is a rule of the game rather than a choice of the AI.
+ */
+public class GeneticTuner {
+
+	// CONSTANTS
+
+    private static final int ELITES = 2;
+    private static final int TOURNAMENT_SIZE = 3;
+    private static final double MUTATION_RATE = 0.2;
+
+    private static final HeuristicGenome.Gene[] GENES = HeuristicGenome.Gene.values();
+
+	// STATE
+
+    private final List<String> names;
+    private final int gamesPerGenome;
+    private final long seed;
+    private final SplittableRandom rand;
+
+    // the share of the win every genome took in every game it played,
+    // indexed by game, NaN for games not yet played
+    private final ConcurrentHashMap<HeuristicGenome, float[]> results = new ConcurrentHashMap<>();
+    private final LongAdder gamesPlayed = new LongAdder();
+    private final LongAdder gamesCached = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param players: the number of Players in every game
+     * @param gamesPerGenome: the number of games every genome is rated on
+     * @param seed: the seed the games and the evolution are derived from
+     */
+    public GeneticTuner(int players, int gamesPerGenome, long seed){
+        if (players < 2 || gamesPerGenome < 1){
+            throw new IllegalArgumentException("The tuner needs games of at least two players.");
+        }
+        List<String> names = new ArrayList<>();
+        for (int seat = 0; seat < players; seat++){
+            names.add("CPU" + seat);
+        }
+        this.names = names;
+        this.gamesPerGenome = gamesPerGenome;
+        this.seed = seed;
+        this.rand = new SplittableRandom(seed);
+    }
+
+    /**
+     * Evolves a population and returns the fittest genome of the last
+     * generation.
+     *
+     * @param populationSize: the number of genomes per generation
+     * @param generations: the number of generations to rate
+     * @param pool: the threads to play the games on
+     * @param log: where to report every generation's best, or null
+     */
+    public HeuristicGenome evolve(int populationSize, int generations, ForkJoinPool pool, PrintStream log){
+        if (populationSize <= ELITES || generations < 1){
+            throw new IllegalArgumentException("The population must be larger than " + ELITES + ".");
+        }
+        List<HeuristicGenome> population = new ArrayList<>();
+        population.add(HeuristicGenome.DEFAULT);
+        while (population.size() < populationSize){
+            population.add(randomGenome());
+        }
+
+        HeuristicGenome best = null;
+        for (int generation = 0; generation < generations; generation++){
+            double[] fitness = rate(population, pool);
+            Integer[] order = new Integer[population.size()];
+            for (int x = 0; x < order.length; x++){
+                order[x] = x;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+            best = population.get(order[0]);
+            if (log != null){
+                log.println(String.format("generation %d: best %.4f, median %.4f, default %.4f: %s",
+                        generation, fitness[order[0]], fitness[order[order.length / 2]],
+                        fitness(HeuristicGenome.DEFAULT), best));
+            }
+            if (generation == generations - 1){
+                break;
+            }
+
+            List<HeuristicGenome> next = new ArrayList<>();
+            for (int x = 0; x < ELITES; x++){
+                next.add(population.get(order[x]));
+            }
+            while (next.size() < populationSize){
+                HeuristicGenome mother = select(population, fitness);
+                HeuristicGenome father = select(population, fitness);
+                next.add(mutate(crossover(mother, father)));
+            }
+            population = next;
+        }
+        return best;
+    }
+
+    /** Rates every genome of a population, playing only games not yet cached. */
+    private double[] rate(List<HeuristicGenome> population, ForkJoinPool pool){
+        // each distinct genome once, so no game is played twice at once
+        List<HeuristicGenome> distinct = new ArrayList<>(new LinkedHashSet<>(population));
+        for (HeuristicGenome genome : distinct){
+            results.computeIfAbsent(genome, g -> {
+                float[] shares = new float[gamesPerGenome];
+                Arrays.fill(shares, Float.NaN);
+                return shares;
+            });
+        }
+        try {
+            pool.submit(() -> IntStream.range(0, distinct.size() * gamesPerGenome).parallel()
+                    .forEach(task -> play(distinct.get(task / gamesPerGenome), task % gamesPerGenome)))
+                    .get();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rating a generation.", e);
+        } catch (ExecutionException e){
+            throw new IllegalStateException("A game failed.", e.getCause());
+        }
+
+        double[] fitness = new double[population.size()];
+        for (int x = 0; x < fitness.length; x++){
+            fitness[x] = fitness(population.get(x));
+        }
+        return fitness;
+    }
+
+    /** Plays one game of a genome, unless its result is already cached. */
+    private void play(HeuristicGenome genome, int game){
+        float[] shares = results.get(genome);
+        if (!Float.isNaN(shares[game])){
+            gamesCached.increment();
+            return;
+        }
+        Simulation sim = new Simulation(names, Tournament.gameSeed(seed, game));
+        int seat = game % names.size();
+        sim.setStrategy(seat, new HeuristicStrategy(genome));
+        int[] winners = sim.run().getWinnerSeats();
+        float share = 0;
+        for (int winner : winners){
+            if (winner == seat){
+                share = 1f / winners.length;
+            }
+        }
+        shares[game] = share;
+        gamesPlayed.increment();
+    }
+
+    /** Returns the share of its games a rated genome won. */
+    private double fitness(HeuristicGenome genome){
+        float[] shares = results.get(genome);
+        if (shares == null){
+            return Double.NaN;
+        }
+        double sum = 0;
+        for (float share : shares){
+            sum += share;
+        }
+        return sum / shares.length;
+    }
+
+    private HeuristicGenome randomGenome(){
+        int[] values = new int[GENES.length];
+        for (HeuristicGenome.Gene gene : GENES){
+            values[gene.ordinal()] = gene.getMin() + rand.nextInt(gene.getMax() - gene.getMin() + 1);
+        }
+        return HeuristicGenome.of(values);
+    }
+
+    /** Picks the fittest of a few genomes drawn at random. */
+    private HeuristicGenome select(List<HeuristicGenome> population, double[] fitness){
+        int best = rand.nextInt(population.size());
+        for (int x = 1; x < TOURNAMENT_SIZE; x++){
+            int other = rand.nextInt(population.size());
+            if (fitness[other] > fitness[best]){
+                best = other;
+            }
+        }
+        return population.get(best);
+    }
+
+    /** Takes every gene from one parent or the other. */
+    private HeuristicGenome crossover(HeuristicGenome mother, HeuristicGenome father){
+        int[] values = mother.values();
+        for (HeuristicGenome.Gene gene : GENES){
+            if (rand.nextBoolean()){
+                values[gene.ordinal()] = father.get(gene);
+            }
+        }
+        return HeuristicGenome.of(values);
+    }
+
+    /** Nudges some genes by a step in proportion to their range. */
+    private HeuristicGenome mutate(HeuristicGenome genome){
+        int[] values = genome.values();
+        for (HeuristicGenome.Gene gene : GENES){
+            if (rand.nextDouble() < MUTATION_RATE){
+                int range = gene.getMax() - gene.getMin();
+                double step = Math.max(1, range / 10.0) * gaussian();
+                int value = values[gene.ordinal()] + (int) Math.round(step);
+                values[gene.ordinal()] = Math.max(gene.getMin(), Math.min(gene.getMax(), value));
+            }
+        }
+        return HeuristicGenome.of(values);
+    }
+
+    /** A standard normal number, by the Box-Muller transform. */
+    private double gaussian(){
+        return Math.sqrt(-2 * Math.log(1 - rand.nextDouble())) * Math.cos(2 * Math.PI * rand.nextDouble());
+    }
+
+    /** Returns the number of games actually played. */
+    public long getGamesPlayed(){
+        return gamesPlayed.sum();
+    }
+
+    /** Returns the number of games whose result came from the cache. */
+    public long getGamesCached(){
+        return gamesCached.sum();
+    }
+
+    /**
+     * Tunes the constants from the command line, and prints the best genome
+     * in the form HeuristicGenome.parse() reads.
+     *
+     * @param args: [generations] [population] [games per genome] [players]
+     *      [threads] [output file]
+     */
+    public static void main(String[] args) throws IOException {
+        int generations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int population = args.length > 1 ? Integer.parseInt(args[1]) : 24;
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int players = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        int threads = args.length > 4 ? Integer.parseInt(args[4])
+                : Runtime.getRuntime().availableProcessors();
+
+        GeneticTuner tuner = new GeneticTuner(players, games, 1000);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        HeuristicGenome best;
+        try {
+            best = tuner.evolve(population, generations, pool, System.out);
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("%d games played, %d cached, %.0f games/s on %d threads",
+                tuner.getGamesPlayed(), tuner.getGamesCached(), tuner.getGamesPlayed() / seconds, threads));
+        System.out.println(best);
+        if (args.length > 5){
+            Files.write(Paths.get(args[5]), (best + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package ArmsRace;
+
+import java.util.Arrays;
+
+/**
+ * The constants of the HeuristicStrategy, as one immutable value that can
+ * be varied, compared and written down. GeneticTuner evolves these; every
+ * HeuristicStrategy is created with one, DEFAULT being the constants the
+ * game has always shipped with.
+ *
+ * The research curve that follows from the constants is computed once per
+ * genome, so creating a HeuristicStrategy stays cheap.
+ */
+public final class HeuristicGenome {
+
+    /** The constants, with the range each may be tuned within. */
+    public enum Gene {
+        // the base weight of research, and of espionage per opponent; at
+        // least 1, so that research always has some weight
+        BASE_WEIGHT(2, 1, 20),
+        // threat added to an opponent that sabotaged the Player
+        BASE_ADD_THREAT(2, 0, 20),
+        // threat added to an opponent that nuked the Player
+        BASE_ADD_EXTREME_THREAT(5, 0, 40),
+        // how far ahead or behind an opponent may be to still be nuked
+        BASE_NUCLEAR_THREAT_THRESHHOLD(5, 0, 30),
+        // the turn the CPUs place the least weight on research
+        TURN_RESEARCH_INFLECTION(5, -20, 50);
+
+        private final int defaultValue;
+        private final int min;
+        private final int max;
+
+        Gene(int defaultValue, int min, int max){
+            this.defaultValue = defaultValue;
+            this.min = min;
+            this.max = max;
+        }
+
+        public int getMin(){
+            return min;
+        }
+
+        public int getMax(){
+            return max;
+        }
+    }
+
+	// CONSTANTS
+
+    private static final Gene[] GENES = Gene.values();
+
+    public static final HeuristicGenome DEFAULT = defaults();
+
+	// STATE
+
+    private final int[] values;
+
+    // the turn-dependent part of the research weight, precomputed for the
+    // turns most games actually reach
+    private final double[] researchCurve = new double[Simulation.DEFAULT_MAX_TURNS + 1];
+
+    private HeuristicGenome(int[] values){
+        this.values = values;
+        for (int turn = 0; turn < researchCurve.length; turn++){
+            researchCurve[turn] = computeResearchCurve(turn);
+        }
+    }
+
+    private static HeuristicGenome defaults(){
+        int[] values = new int[GENES.length];
+        for (Gene gene : GENES){
+            values[gene.ordinal()] = gene.defaultValue;
+        }
+        return new HeuristicGenome(values);
+    }
+
+    /** Returns the value of a gene. */
+    public int get(Gene gene){
+        return values[gene.ordinal()];
+    }
+
+    /**
+     * Returns the genome with the given values.
+     *
+     * @param values: the value of every gene, indexed by ordinal
+     */
+    static HeuristicGenome of(int[] values){
+        if (values.length != GENES.length){
+            throw new IllegalArgumentException("A genome has " + GENES.length + " genes.");
+        }
+        for (Gene gene : GENES){
+            int value = values[gene.ordinal()];
+            if (value < gene.min || value > gene.max){
+                throw new IllegalArgumentException(String.format("%s must be between %d and %d, not %d.",
+                        gene, gene.min, gene.max, value));
+            }
+        }
+        return new HeuristicGenome(values.clone());
+    }
+
+    /** Returns the values of every gene, indexed by ordinal. */
+    int[] values(){
+        return values.clone();
+    }
+
+    /**
+     * Returns a genome with one gene changed.
+     *
+     * @param gene: the gene to change
+     * @param value: its new value, within the gene's range
+     */
+    public HeuristicGenome with(Gene gene, int value){
+        int[] changed = values.clone();
+        changed[gene.ordinal()] = value;
+        return of(changed);
+    }
+
+    /** The turn-dependent part of the research weight. */
+    double researchCurve(int turn){
+        return (turn >= 0 && turn < researchCurve.length) ? researchCurve[turn] : computeResearchCurve(turn);
+    }
+
+    private double computeResearchCurve(int turn){
+        double t = turn + get(Gene.TURN_RESEARCH_INFLECTION);
+        return Math.sqrt(t * t + get(Gene.BASE_WEIGHT));
+    }
+
+    /**
+     * Reads a genome written by toString(). Genes that are left out keep
+     * their default values.
+     *
+     * @param text: GENE=value pairs, separated by commas or semicolons
+     */
+    public static HeuristicGenome parse(String text){
+        HeuristicGenome genome = DEFAULT;
+        for (String pair : text.split("[,;]")){
+            if (pair.isBlank()){
+                continue;
+            }
+            String[] parts = pair.split("=");
+            if (parts.length != 2){
+                throw new IllegalArgumentException("Not a GENE=value pair: " + pair);
+            }
+            genome = genome.with(Gene.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return genome;
+    }
+
+    @Override
+    public boolean equals(Object o){
+        return o instanceof HeuristicGenome && Arrays.equals(values, ((HeuristicGenome) o).values);
+    }
+
+    @Override
+    public int hashCode(){
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder();
+        for (Gene gene : GENES){
+            if (sb.length() > 0){
+                sb.append(',');
+            }
+            sb.append(gene).append('=').append(values[gene.ordinal()]);
+        }
+        return sb.toString();
+    }
+
+}
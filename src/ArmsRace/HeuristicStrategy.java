@@ -0,0 +1,187 @@
+package ArmsRace;
+
+/**
+ * The original computer opponent: a simple weighted probability algorithm
+ * that makes a "reasonable" next move based on what the Player knows about
+ * the condition of its opponents. Research is weighed by a curve over the
+ * turns, espionage by how long the Player has gone without it, and
+ * sabotage and nuclear strikes by the threat the Player sees in its
+ * opponents. Its constants are a HeuristicGenome.
+ */
+public class HeuristicStrategy implements Strategy {
+
+	// CONSTANTS
+
+    // weighted decisions are indexed by ordinal; NONE is never an option
+    private static final Model.Decision[] DECISIONS = Model.Decision.values();
+
+	// STATE
+
+    private final HeuristicGenome genome;
+    private final int baseWeight;
+    private final int nuclearThreatThreshold;
+
+    // scratch space, reused every turn
+    private final double[] weights = new double[BATCH_WEIGHTS];
+
+    /** Constructor. Uses the default constants. */
+    public HeuristicStrategy(){
+        this(HeuristicGenome.DEFAULT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param genome: the constants to play by
+     */
+    public HeuristicStrategy(HeuristicGenome genome){
+        this.genome = genome;
+        this.baseWeight = genome.get(HeuristicGenome.Gene.BASE_WEIGHT);
+        this.nuclearThreatThreshold = genome.get(HeuristicGenome.Gene.BASE_NUCLEAR_THREAT_THRESHHOLD);
+    }
+
+    /** Returns the constants this Strategy plays by. */
+    public HeuristicGenome getGenome(){
+        return genome;
+    }
+
+    @Override
+    public void choose(GameView view, Choice choice){
+        weigh(view, choice, weights, 0);
+        draw(view, choice, weights, 0);
+    }
+
+    @Override
+    public boolean isBatched(){
+        return true;
+    }
+
+    /**
+     * The algorithm makes use of the turn to adjust the weight of certain
+     * actions, as different actions are more relevant at different
+     * portions of the game.
+     */
+    @Override
+    public void weigh(GameView view, Choice choice, double[] weights, int offset){
+        double  researchWeight = baseWeight,
+                espionageWeight = 0,
+                sabotageWeight = 0,
+                nuclearWeight = 0;
+
+        int     currSabotageValue = 0,
+                maxSabotageValue = 0,
+                currNuclearValue = 0,
+                maxNuclearValue = 0,
+                perceivedResearchDifference = 0;
+
+        int seat = view.getSeat();
+        int turn = view.getTurn();
+        int researchPoints = view.getResearchPoints();
+        int numOpponents = view.size() - 1;
+        boolean nuclearAvailable = view.isNuclearAvailable();
+        int sabotageTargetOne = GameState.NO_TARGET;
+        int sabotageTargetTwo = GameState.NO_TARGET;
+        int nuclearTarget = GameState.NO_TARGET;
+
+        researchWeight += genome.researchCurve(turn);
+
+        // ESPIONAGE DECISION PATH
+        espionageWeight += (double) view.getTurnsSinceLastEspionage() * baseWeight * numOpponents;
+
+        // opponents are scanned from a random one on, so that a tie for
+        // the highest threat does not always fall to the same seat
+        int first = (int) (view.nextRandom() * numOpponents);
+        for (int step = 0; step < numOpponents; step++){
+            int o = (seat + 1 + (first + step) % numOpponents) % view.size();
+            int threatLevel = view.getThreat(o);
+
+            // SABOTAGE DECISION PATH
+            currSabotageValue = threatLevel;
+            sabotageWeight += currSabotageValue;
+            if (currSabotageValue > maxSabotageValue){
+                maxSabotageValue = currSabotageValue;
+                if (sabotageTargetOne == GameState.NO_TARGET){
+                    sabotageTargetOne = o;
+                }else if (sabotageTargetTwo == GameState.NO_TARGET){
+                    sabotageTargetTwo = o;
+                }else{
+                    if (view.getThreat(sabotageTargetOne) < view.getThreat(sabotageTargetTwo)){
+                        sabotageTargetOne = o;
+                    }else{
+                        sabotageTargetTwo = o;
+                    }
+                }
+            }
+
+            // NUCLEAR DECISION PATH
+            // Computers are more likely to attack targets that are perceived
+            // to be ahead, rather than behind, and will not nuke targets that
+            // are too far apart from it in research (in either way)
+            if (nuclearAvailable){
+                perceivedResearchDifference = researchPoints - view.getLastKnown(o);
+                currNuclearValue += threatLevel;
+                if (    perceivedResearchDifference > nuclearThreatThreshold ||
+                        perceivedResearchDifference < -nuclearThreatThreshold){
+                    currNuclearValue = 0;
+                    perceivedResearchDifference = 0;
+                }
+                nuclearWeight += currNuclearValue - perceivedResearchDifference;
+                if (currNuclearValue > maxNuclearValue){
+                    maxNuclearValue = currNuclearValue;
+                    nuclearTarget = o;
+                }
+            }
+        }
+
+        // negatives screw up the calculations
+        researchWeight = researchWeight < 0 ? 0 : researchWeight;
+        espionageWeight = espionageWeight < 0 ? 0 : espionageWeight;
+        sabotageWeight = sabotageWeight < 0 ? 0 : sabotageWeight;
+        nuclearWeight = nuclearWeight < 0 ? 0 : nuclearWeight;
+
+        // an attack needs somebody to attack
+        if (sabotageTargetOne == GameState.NO_TARGET){ sabotageWeight = 0; }
+        if (nuclearTarget == GameState.NO_TARGET){ nuclearWeight = 0; }
+
+        weights[offset + Model.Decision.RESEARCH.ordinal()] = researchWeight;
+        weights[offset + Model.Decision.ESPIONAGE.ordinal()] = espionageWeight;
+        weights[offset + Model.Decision.SABOTAGE.ordinal()] = sabotageWeight;
+        weights[offset + Model.Decision.NUCLEAR.ordinal()] = nuclearWeight;
+
+        choice.setSabotageTargets(sabotageTargetOne, sabotageTargetTwo);
+        choice.setNuclearTarget(nuclearTarget);
+    }
+
+    @Override
+    public void draw(GameView view, Choice choice, double[] weights, int offset){
+        int decisionOne = WeightedSampler.sample(weights, offset, BATCH_WEIGHTS, view.nextRandom());
+        int decisionTwo;
+        if (decisionOne == Model.Decision.NUCLEAR.ordinal()){
+            decisionTwo = decisionOne;
+        }else{
+            // NUCLEAR is the last option, so leaving it out drops it
+            if (choice.getSabotageTargetTwo() == GameState.NO_TARGET){
+                weights[offset + Model.Decision.SABOTAGE.ordinal()] = 0;
+            }
+            decisionTwo = WeightedSampler.sample(weights, offset, Model.Decision.NUCLEAR.ordinal(),
+                    view.nextRandom());
+        }
+        choice.setDecisions(DECISIONS[decisionOne], DECISIONS[decisionTwo]);
+    }
+
+    @Override
+    public int getSabotageThreat(){
+        return genome.get(HeuristicGenome.Gene.BASE_ADD_THREAT);
+    }
+
+    @Override
+    public int getNuclearThreat(){
+        return genome.get(HeuristicGenome.Gene.BASE_ADD_EXTREME_THREAT);
+    }
+
+    @Override
+    public String getName(){
+        return genome.equals(HeuristicGenome.DEFAULT) ? "heuristic" : "heuristic:" + genome;
+    }
+
+}
@@ -0,0 +1,300 @@
+package ArmsRace;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * What every Player knows about every other Player: the research points it
+ * last saw them at, and how threatening it considers them. Both are stored
+ * as flat size x size int matrices, one row per observing seat, instead of
+ * as one Opponent object per pair of Players.
+ *
+ * The matrices live on the heap by default. Games too large for that, or
+ * runs that ask for it with -DArmsRace.offHeapKnowledge=true, keep them in
+ * direct ByteBuffers outside the heap, split into chunks of whole rows.
+ * Diagonal entries (a Player's knowledge of itself) exist but are unused.
+ */
+public abstract class KnowledgeMatrix {
+
+	// CONSTANTS
+
+    /** Set this system property to true to always keep knowledge off-heap. */
+    public static final String OFF_HEAP_PROPERTY = "ArmsRace.offHeapKnowledge";
+
+    // the largest matrix that fits in a single Java array
+    private static final long MAX_ON_HEAP_ENTRIES = Integer.MAX_VALUE - 8;
+
+    // the largest number of ints kept in a single direct buffer
+    private static final int MAX_CHUNK_INTS = 1 << 28;
+
+	// STATE
+
+    final int size;
+
+    private KnowledgeMatrix(int size){
+        this.size = size;
+    }
+
+    /**
+     * Creates the knowledge matrices for a game, with every Player knowing
+     * nothing of the others yet.
+     *
+     * @param size: the number of seats in the game
+     * @param initialThreat: the threat level every Player starts out at
+     */
+    static KnowledgeMatrix create(int size, int initialThreat){
+        long entries = (long) size * size;
+        KnowledgeMatrix matrix = (entries > MAX_ON_HEAP_ENTRIES || Boolean.getBoolean(OFF_HEAP_PROPERTY))
+                ? new OffHeap(size) : new OnHeap(size);
+        matrix.fillThreat(initialThreat);
+        return matrix;
+    }
+
+    /** Returns whether this matrix is kept outside of the heap. */
+    public abstract boolean isOffHeap();
+
+    /** Returns the research points observer last saw opponent at. */
+    abstract int getLastKnown(int observer, int opponent);
+
+    /** Returns how threatening observer considers opponent. */
+    abstract int getThreat(int observer, int opponent);
+
+    /** Raises the threat observer sees in opponent by the given amount. */
+    abstract void addThreat(int observer, int opponent, int amount);
+
+    /**
+     * Re-evaluates every threat in the observer's row, based on how far
+     * ahead of the observer each opponent was last seen to be.
+     *
+     * @param observer: the seat whose row is swept
+     * @param researchPoints: the observer's own research points
+     */
+    abstract void updateThreatRow(int observer, int researchPoints);
+
+    /**
+     * Espionage with perfect accuracy: the observer learns everybody's
+     * research points.
+     *
+     * @param observer: the seat whose row is swept
+     * @param researchPoints: the research points of every seat
+     */
+    abstract void observeRow(int observer, int[] researchPoints);
+
+    /**
+     * Espionage with limited accuracy: the observer learns everybody's
+     * research points give or take one. Draws one random number per
+     * opponent, in seat order.
+     *
+     * @param observer: the seat whose row is swept
+     * @param researchPoints: the research points of every seat
+     * @param random: the game's random number generators
+     * @param stream: the observer's espionage stream
+     */
+    abstract void observeRowWithNoise(int observer, int[] researchPoints, GameRandom random, int stream);
+
+    /** Sets every threat in the matrix to the given value. */
+    abstract void fillThreat(int threat);
+
+    /** Copies one observer's row of both matrices out, for checkpoints. */
+    abstract void getRow(int observer, int[] lastKnownRow, int[] threatRow);
+
+    /** Overwrites one observer's row of both matrices, from a checkpoint. */
+    abstract void setRow(int observer, int[] lastKnownRow, int[] threatRow);
+
+    /** Makes this matrix a copy of another of the same size, row by row. */
+    void copyFrom(KnowledgeMatrix other){
+        int[] lastKnownRow = new int[size];
+        int[] threatRow = new int[size];
+        for (int observer = 0; observer < size; observer++){
+            other.getRow(observer, lastKnownRow, threatRow);
+            setRow(observer, lastKnownRow, threatRow);
+        }
+    }
+
+    /** Knowledge kept in two int arrays on the heap. */
+    private static final class OnHeap extends KnowledgeMatrix {
+
+        private final int[] lastKnown;
+        private final int[] threat;
+
+        private OnHeap(int size){
+            super(size);
+            lastKnown = new int[size * size];
+            threat = new int[size * size];
+        }
+
+        @Override
+        public boolean isOffHeap(){ return false; }
+
+        @Override
+        int getLastKnown(int observer, int opponent){
+            return lastKnown[observer * size + opponent];
+        }
+
+        @Override
+        int getThreat(int observer, int opponent){
+            return threat[observer * size + opponent];
+        }
+
+        @Override
+        void addThreat(int observer, int opponent, int amount){
+            threat[observer * size + opponent] += amount;
+        }
+
+        @Override
+        void updateThreatRow(int observer, int researchPoints){
+            int row = observer * size;
+            for (int x = row; x < row + size; x++){
+                threat[x] += lastKnown[x] - researchPoints;
+            }
+        }
+
+        @Override
+        void observeRow(int observer, int[] researchPoints){
+            System.arraycopy(researchPoints, 0, lastKnown, observer * size, size);
+        }
+
+        @Override
+        void observeRowWithNoise(int observer, int[] researchPoints, GameRandom random, int stream){
+            int row = observer * size;
+            for (int x = 0; x < size; x++){
+                if (x != observer){
+                    lastKnown[row + x] = researchPoints[x] + random.nextInt(stream, 3) - 1;
+                }
+            }
+        }
+
+        @Override
+        void fillThreat(int value){
+            Arrays.fill(threat, value);
+        }
+
+        @Override
+        void copyFrom(KnowledgeMatrix other){
+            if (!(other instanceof OnHeap)){
+                super.copyFrom(other);
+                return;
+            }
+            System.arraycopy(((OnHeap) other).lastKnown, 0, lastKnown, 0, lastKnown.length);
+            System.arraycopy(((OnHeap) other).threat, 0, threat, 0, threat.length);
+        }
+
+        @Override
+        void getRow(int observer, int[] lastKnownRow, int[] threatRow){
+            System.arraycopy(lastKnown, observer * size, lastKnownRow, 0, size);
+            System.arraycopy(threat, observer * size, threatRow, 0, size);
+        }
+
+        @Override
+        void setRow(int observer, int[] lastKnownRow, int[] threatRow){
+            System.arraycopy(lastKnownRow, 0, lastKnown, observer * size, size);
+            System.arraycopy(threatRow, 0, threat, observer * size, size);
+        }
+    }
+
+    /**
+     * Knowledge kept in direct buffers outside the heap. Each chunk holds a
+     * whole number of rows, so that row sweeps never cross a chunk.
+     */
+    private static final class OffHeap extends KnowledgeMatrix {
+
+        private final int rowsPerChunk;
+        private final IntBuffer[] lastKnown;
+        private final IntBuffer[] threat;
+
+        private OffHeap(int size){
+            super(size);
+            rowsPerChunk = Math.max(1, MAX_CHUNK_INTS / Math.max(1, size));
+            int chunks = (size + rowsPerChunk - 1) / rowsPerChunk;
+            lastKnown = new IntBuffer[chunks];
+            threat = new IntBuffer[chunks];
+            for (int x = 0; x < chunks; x++){
+                int rows = Math.min(rowsPerChunk, size - x * rowsPerChunk);
+                lastKnown[x] = allocate(rows * size);
+                threat[x] = allocate(rows * size);
+            }
+        }
+
+        private static IntBuffer allocate(int ints){
+            return ByteBuffer.allocateDirect(ints * Integer.BYTES)
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+
+        /** Returns the position of the start of a row within its chunk. */
+        private int rowStart(int observer){
+            return (observer % rowsPerChunk) * size;
+        }
+
+        @Override
+        public boolean isOffHeap(){ return true; }
+
+        @Override
+        int getLastKnown(int observer, int opponent){
+            return lastKnown[observer / rowsPerChunk].get(rowStart(observer) + opponent);
+        }
+
+        @Override
+        int getThreat(int observer, int opponent){
+            return threat[observer / rowsPerChunk].get(rowStart(observer) + opponent);
+        }
+
+        @Override
+        void addThreat(int observer, int opponent, int amount){
+            IntBuffer chunk = threat[observer / rowsPerChunk];
+            int index = rowStart(observer) + opponent;
+            chunk.put(index, chunk.get(index) + amount);
+        }
+
+        @Override
+        void updateThreatRow(int observer, int researchPoints){
+            IntBuffer known = lastKnown[observer / rowsPerChunk];
+            IntBuffer threats = threat[observer / rowsPerChunk];
+            int row = rowStart(observer);
+            for (int x = row; x < row + size; x++){
+                threats.put(x, threats.get(x) + known.get(x) - researchPoints);
+            }
+        }
+
+        @Override
+        void observeRow(int observer, int[] researchPoints){
+            lastKnown[observer / rowsPerChunk].put(rowStart(observer), researchPoints, 0, size);
+        }
+
+        @Override
+        void observeRowWithNoise(int observer, int[] researchPoints, GameRandom random, int stream){
+            IntBuffer known = lastKnown[observer / rowsPerChunk];
+            int row = rowStart(observer);
+            for (int x = 0; x < size; x++){
+                if (x != observer){
+                    known.put(row + x, researchPoints[x] + random.nextInt(stream, 3) - 1);
+                }
+            }
+        }
+
+        @Override
+        void fillThreat(int value){
+            for (IntBuffer chunk : threat){
+                for (int x = 0; x < chunk.capacity(); x++){
+                    chunk.put(x, value);
+                }
+            }
+        }
+
+        @Override
+        void getRow(int observer, int[] lastKnownRow, int[] threatRow){
+            int row = rowStart(observer);
+            lastKnown[observer / rowsPerChunk].get(row, lastKnownRow, 0, size);
+            threat[observer / rowsPerChunk].get(row, threatRow, 0, size);
+        }
+
+        @Override
+        void setRow(int observer, int[] lastKnownRow, int[] threatRow){
+            int row = rowStart(observer);
+            lastKnown[observer / rowsPerChunk].put(row, lastKnownRow, 0, size);
+            threat[observer / rowsPerChunk].put(row, threatRow, 0, size);
+        }
+    }
+
+}
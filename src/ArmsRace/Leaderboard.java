@@ -0,0 +1,370 @@
+package ArmsRace;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The standings of a game, kept in an indexed binary heap of seats so that
+ * the leader is always at hand. Players are ranked by research points, and
+ * Players with equal points by the turn they got there. Players who got
+ * there on the same turn are ranked in an order of the seats drawn from the
+ * seed of the game, so that no seat is favoured; this is also the order in
+ * which Players tied for the win are listed.
+ *
+ * Every Player gains one research point per turn just for passing it, which
+ * leaves the standings as they were. The heap therefore stores each seat's
+ * points minus the turns resolved so far. TurnResolver reports the seats
+ * whose points moved by anything else, and after each turn only those are
+ * sifted, at O(log N) each. Finding the leader is O(1), the Players tied
+ * for the lead O(ties), and the top K Players O(K log K).
+ */
+public final class Leaderboard {
+
+	// STATE
+
+    private final int size;
+
+    // seats in heap order, best first, and where each seat is in the heap
+    private final int[] heap;
+    private final int[] position;
+
+    // research points minus the passive gains of every resolved turn
+    private final int[] key;
+    private int offset = 0;
+
+    // the turn each seat last changed its standing on; earlier wins a tie
+    private final long[] stamp;
+    private long clock = 0;
+
+    // the rank of each seat among seats tied on the same turn
+    private final int[] order;
+
+    // the seats reported by moved() since the last turn was resolved
+    private final int[] moved;
+    private final boolean[] isMoved;
+    private int movedCount = 0;
+
+    // the Players tied for the lead, found by countLeaders(), and scratch
+    // space for finding them; both grow with the number of ties
+    private int[] leaders = new int[4];
+    private int[] stack = new int[8];
+
+    /**
+     * Constructor. Creates the standings of a game that has not started,
+     * with every Player at zero.
+     *
+     * @param size: the number of seats in the game
+     * @param seed: the seed of the game, which the order of tied seats is
+     *      drawn from
+     */
+    Leaderboard(int size, long seed){
+        this.size = size;
+        heap = new int[size];
+        position = new int[size];
+        key = new int[size];
+        stamp = new long[size];
+        order = new int[size];
+        moved = new int[size];
+        isMoved = new boolean[size];
+        for (int seat = 0; seat < size; seat++){
+            heap[seat] = seat;
+            position[seat] = seat;
+            order[seat] = seat;
+        }
+        SplittableRandom rand = new SplittableRandom(GameRandom.derive(seed, -1));
+        for (int x = size - 1; x > 0; x--){
+            swap(order, x, rand.nextInt(x + 1));
+        }
+        // the heap must be ordered by the drawn ranks from the start
+        for (int x = size / 2 - 1; x >= 0; x--){
+            siftDown(x);
+        }
+    }
+
+    /** Returns whether seat a ranks above seat b. */
+    private boolean ranksAbove(int a, int b){
+        if (key[a] != key[b]){
+            return key[a] > key[b];
+        }
+        if (stamp[a] != stamp[b]){
+            return stamp[a] < stamp[b];
+        }
+        return order[a] < order[b];
+    }
+
+    /**
+     * Notes that the research points of a seat moved by more than the
+     * passive gain this turn, so that turnResolved() looks at it. Seats may
+     * be reported more than once; the others are not looked at at all.
+     *
+     * @param seat: the seat whose points moved
+     */
+    void moved(int seat){
+        if (!isMoved[seat]){
+            isMoved[seat] = true;
+            moved[movedCount++] = seat;
+        }
+    }
+
+    /**
+     * Brings the standings up to date after a turn has been resolved, in
+     * which every Player gained the passive research point. Only the seats
+     * reported to moved() since the last turn are sifted.
+     *
+     * @param researchPoints: the research points of every seat
+     */
+    void turnResolved(int[] researchPoints){
+        offset++;
+        // every seat that moves this turn gets the same stamp, so that the
+        // order in which seats are visited decides nothing
+        clock++;
+        for (int x = 0; x < movedCount; x++){
+            int seat = moved[x];
+            isMoved[seat] = false;
+            int k = researchPoints[seat] - offset;
+            if (k != key[seat]){
+                boolean up = k > key[seat];
+                key[seat] = k;
+                stamp[seat] = clock;
+                if (up){
+                    siftUp(position[seat]);
+                }else{
+                    siftDown(position[seat]);
+                }
+            }
+        }
+        movedCount = 0;
+    }
+
+    /**
+     * Rebuilds the standings from scratch, for a game whose research points
+     * were set directly, as when it is restored from a checkpoint.
+     *
+     * @param researchPoints: the research points of every seat
+     * @param turnsResolved: the number of turns resolved so far
+     * @param stamps: when each seat last changed its standing
+     * @param clock: the latest of the stamps
+     */
+    void rebuild(int[] researchPoints, int turnsResolved, long[] stamps, long clock){
+        this.offset = turnsResolved;
+        this.clock = clock;
+        System.arraycopy(stamps, 0, stamp, 0, size);
+        rebuild(researchPoints);
+    }
+
+    /**
+     * Rebuilds the standings from the given research points, keeping when
+     * every seat last changed its standing.
+     *
+     * @param researchPoints: the research points of every seat
+     */
+    void rebuild(int[] researchPoints){
+        for (int x = 0; x < movedCount; x++){
+            isMoved[moved[x]] = false;
+        }
+        movedCount = 0;
+        for (int seat = 0; seat < size; seat++){
+            key[seat] = researchPoints[seat] - offset;
+            heap[seat] = seat;
+            position[seat] = seat;
+        }
+        for (int x = size / 2 - 1; x >= 0; x--){
+            siftDown(x);
+        }
+    }
+
+    /** Makes these standings those of another game of the same size. */
+    void copyFrom(Leaderboard other){
+        System.arraycopy(other.heap, 0, heap, 0, size);
+        System.arraycopy(other.position, 0, position, 0, size);
+        System.arraycopy(other.key, 0, key, 0, size);
+        System.arraycopy(other.stamp, 0, stamp, 0, size);
+        System.arraycopy(other.order, 0, order, 0, size);
+        offset = other.offset;
+        clock = other.clock;
+        for (int x = 0; x < movedCount; x++){
+            isMoved[moved[x]] = false;
+        }
+        movedCount = other.movedCount;
+        for (int x = 0; x < movedCount; x++){
+            moved[x] = other.moved[x];
+            isMoved[moved[x]] = true;
+        }
+    }
+
+    private void siftUp(int x){
+        int seat = heap[x];
+        while (x > 0){
+            int parent = (x - 1) >>> 1;
+            if (!ranksAbove(seat, heap[parent])){
+                break;
+            }
+            place(heap[parent], x);
+            x = parent;
+        }
+        place(seat, x);
+    }
+
+    private void siftDown(int x){
+        int seat = heap[x];
+        while (true){
+            int child = 2 * x + 1;
+            if (child >= size){
+                break;
+            }
+            if (child + 1 < size && ranksAbove(heap[child + 1], heap[child])){
+                child++;
+            }
+            if (!ranksAbove(heap[child], seat)){
+                break;
+            }
+            place(heap[child], x);
+            x = child;
+        }
+        place(seat, x);
+    }
+
+    private void place(int seat, int x){
+        heap[x] = seat;
+        position[seat] = x;
+    }
+
+    /** Returns the seat of the Player in first place. */
+    public int getLeader(){
+        return heap[0];
+    }
+
+    /** Returns the research points of the Player in first place. */
+    public int getMaxResearchPoints(){
+        return key[heap[0]] + offset;
+    }
+
+    /**
+     * Finds every Player with the most research points, ordered by how
+     * ties are broken, and returns how many there are; getLeader(rank)
+     * returns them until the standings next change. Nothing is allocated
+     * unless there are more ties than ever before.
+     */
+    public int countLeaders(){
+        int best = key[heap[0]];
+        int count = 0;
+        // the Players tied for the lead form a subtree at the top of the heap
+        int depth = 0;
+        stack[depth++] = 0;
+        while (depth > 0){
+            int x = stack[--depth];
+            if (x >= size || key[heap[x]] != best){
+                continue;
+            }
+            if (count == leaders.length){
+                leaders = Arrays.copyOf(leaders, count * 2);
+            }
+            leaders[count++] = heap[x];
+            if (depth + 2 > stack.length){
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[depth++] = 2 * x + 1;
+            stack[depth++] = 2 * x + 2;
+        }
+        sortByRank(leaders, count);
+        return count;
+    }
+
+    /**
+     * Returns one of the Players found by countLeaders().
+     *
+     * @param rank: the place of the Player among those tied for the lead,
+     *      from 0
+     */
+    public int getLeader(int rank){
+        return leaders[rank];
+    }
+
+    /**
+     * Returns the seats of the best Players, best first.
+     *
+     * @param k: the number of Players to return, at most
+     */
+    public int[] getTop(int k){
+        k = Math.min(k, size);
+        int[] top = new int[k];
+        // a second, small heap of the heap positions that could come next
+        int[] candidates = new int[2 * k + 1];
+        int count = 0;
+        if (k > 0){
+            candidates[count++] = 0;
+        }
+        for (int n = 0; n < k; n++){
+            int x = candidates[0];
+            top[n] = heap[x];
+            candidates[0] = candidates[--count];
+            siftCandidates(candidates, count, 0);
+            for (int child = 2 * x + 1; child <= 2 * x + 2 && child < size; child++){
+                candidates[count++] = child;
+                int c = count - 1;
+                while (c > 0 && ranksAbove(heap[candidates[c]], heap[candidates[(c - 1) >>> 1]])){
+                    swap(candidates, c, (c - 1) >>> 1);
+                    c = (c - 1) >>> 1;
+                }
+            }
+        }
+        return top;
+    }
+
+    private void siftCandidates(int[] candidates, int count, int c){
+        while (true){
+            int child = 2 * c + 1;
+            if (child >= count){
+                return;
+            }
+            if (child + 1 < count && ranksAbove(heap[candidates[child + 1]], heap[candidates[child]])){
+                child++;
+            }
+            if (!ranksAbove(heap[candidates[child]], heap[candidates[c]])){
+                return;
+            }
+            swap(candidates, c, child);
+            c = child;
+        }
+    }
+
+    private static void swap(int[] array, int a, int b){
+        int t = array[a];
+        array[a] = array[b];
+        array[b] = t;
+    }
+
+    /** Sorts the first few seats of an array by rank, best first. */
+    private void sortByRank(int[] seats, int count){
+        for (int x = 1; x < count; x++){
+            int seat = seats[x];
+            int y = x - 1;
+            while (y >= 0 && ranksAbove(seat, seats[y])){
+                seats[y + 1] = seats[y];
+                y--;
+            }
+            seats[y + 1] = seat;
+        }
+    }
+
+    /** Returns whether the first seat ranks above the second. */
+    public boolean isAhead(int seat, int other){
+        return ranksAbove(seat, other);
+    }
+
+    /** Returns the number of turns whose passive gains have been counted. */
+    int getTurnsResolved(){
+        return offset;
+    }
+
+    /** Returns the turn the given seat last changed its standing on. */
+    long getStamp(int seat){
+        return stamp[seat];
+    }
+
+    /** Returns the latest stamp handed out. */
+    long getClock(){
+        return clock;
+    }
+
+}
@@ -1,11 +1,9 @@
 package ArmsRace;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Scanner;
-import java.util.logging.ConsoleHandler;
-import java.util.logging.Handler;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -13,24 +11,50 @@ import java.util.logging.Logger;
  */
 public class Main {
 
-	private static ArrayList<String> opponents = new ArrayList<>();
 	public static final Logger LOGGER = Logger.getLogger( Player.class.getName() );
-	public static Handler HANDLER;
 
-	// TODO add name list for system argument
+	// e.g. -DArmsRace.logLevel=FINER to log every decision
+	public static final String LOG_LEVEL_PROPERTY = "ArmsRace.logLevel";
+
+	/**
+	 * Plays a game at the console.
+	 *
+	 * @param args: [file of opponent names, one per line]
+	 */
     public static void main(String[] args) {
-		File opponentFile = new File("resources/opponents.txt");
+		Path opponentFile = Paths.get(args.length > 0 ? args[0] : "resources/opponents.txt");
+		AsyncLogHandler handler = GameEvents.configure(
+				Level.parse(System.getProperty(LOG_LEVEL_PROPERTY, "OFF")), System.err);
+		GameMetrics.Dump metrics = GameMetrics.configureFromProperty(System.err);
+		SpectatorServer spectators = null;
 		try {
-			//HANDLER = new ConsoleHandler();
-			//LOGGER.getLogger("").addHandler(HANDLER);
-			Scanner in = new Scanner(opponentFile);
-			while (in.hasNextLine()){
-				opponents.add(in.nextLine());
+			NameSource opponents;
+			try {
+				opponents = NameSource.load(opponentFile);
+			} catch (IOException e){
+				// every opponent gets a generated name instead
+				System.err.println("Could not read " + opponentFile + ": " + e);
+				opponents = NameSource.empty();
 			}
 			Model game = new Model(opponents);
+			String spectatorPort = System.getProperty(SpectatorServer.PORT_PROPERTY);
+			if (spectatorPort != null){
+				spectators = new SpectatorServer(Integer.parseInt(spectatorPort), null);
+				System.err.println(String.format("Spectators can watch at http://localhost:%d/",
+						spectators.getPort()));
+				game.setSpectator(spectators);
+			}
 			game.runGame();
 		} catch (IOException e){
 			e.printStackTrace();
+		} finally {
+			if (spectators != null){
+				spectators.close();
+			}
+			if (metrics != null){
+				metrics.close();
+			}
+			handler.close();
 		}
     }
 }
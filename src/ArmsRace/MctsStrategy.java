@@ -0,0 +1,422 @@
+package ArmsRace;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A computer opponent that looks ahead by Monte Carlo Tree Search. Every
+ * turn, it lists a few dozen candidate moves and plays each of them out
+ * many times in a copy of the game, with every Player following the
+ * HeuristicStrategy after that first move, and picks the move that did
+ * best.
+ *
+ * Moves within a turn are simultaneous and their outcomes random, so the
+ * tree is searched at the root only: candidate moves are chosen by UCB1,
+ * and everything after the first turn is a plain rollout. Each core runs a
+ * search of its own over the same candidates, and their statistics are
+ * merged at the end.
+ *
+ * The copy holds what the Player believes rather than the truth. Every
+ * opponent is put at the research points the Player last saw it at, plus
+ * the passive gains of the turns since. What the Player cannot see of its
+ * opponents is replaced by what it can assume: each is taken to know the
+ * standings as well as the Player does, to see the threats the Player sees
+ * and to fear the Player as much as the Player fears it, to have gone as
+ * long without spying as the Player has, and to have been attacked only by
+ * the Player. Their last decisions, and the order in which Players reached
+ * their scores, are forgotten, and the dice are reseeded for every rollout.
+ * A copy is made once per game with GameState.copy() and reset with
+ * GameState.copyFrom(), which only copies arrays; the knowledge matrix is
+ * the largest of them, so the search is meant for small games.
+ */
+public class MctsStrategy implements Strategy {
+
+	// CONSTANTS
+
+    public static final long DEFAULT_BUDGET_MILLIS = 50;
+    public static final int DEFAULT_HORIZON = 20;
+
+    // the opponents considered as targets, most advanced first
+    private static final int CANDIDATE_TARGETS = 3;
+    private static final double EXPLORATION = 1.0;
+
+    // the calling thread searches too, alongside one pooled thread per
+    // other core
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService WORKERS = PARALLELISM > 1
+            ? Executors.newFixedThreadPool(PARALLELISM - 1,
+                    Thread.ofPlatform().daemon().name("ArmsRace-mcts-", 0).factory())
+            : null;
+
+    private static final Model.Decision[] SIMPLE = {Model.Decision.RESEARCH, Model.Decision.ESPIONAGE};
+
+	// STATE
+
+    private final long budgetNanos;
+    private final int maxRollouts;
+    private final int horizon;
+
+    // the game as the Player believes it to be, and a copy per worker to
+    // play it out in; made on the first turn
+    private GameState belief;
+    private final GameState[] scratch = new GameState[PARALLELISM];
+
+    // what the opponents are assumed to know, see believe()
+    private int[] estimates;
+    private int[] threats;
+    private long[] noStamps;
+
+    private long rollouts = 0;
+
+    /** Constructor. Searches for DEFAULT_BUDGET_MILLIS per move. */
+    public MctsStrategy(){
+        this(DEFAULT_BUDGET_MILLIS, 0, DEFAULT_HORIZON);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param budgetMillis: the time to search for per move
+     * @param maxRollouts: the number of rollouts per move, or 0 for as
+     *      many as fit in the budget. A fixed number of rollouts on a
+     *      single core makes the search reproducible.
+     * @param horizon: the number of turns a rollout plays at most
+     */
+    public MctsStrategy(long budgetMillis, int maxRollouts, int horizon){
+        if (budgetMillis < 1 && maxRollouts < 1){
+            throw new IllegalArgumentException("The search needs a time budget or a number of rollouts.");
+        }
+        if (horizon < 1){
+            throw new IllegalArgumentException("Rollouts must play at least one turn.");
+        }
+        this.budgetNanos = budgetMillis * 1000000;
+        this.maxRollouts = maxRollouts;
+        this.horizon = horizon;
+    }
+
+    @Override
+    public void choose(GameView view, Choice choice){
+        believe(view);
+        List<Choice> moves = candidateMoves(view);
+        if (moves.size() == 1){
+            copy(moves.get(0), choice);
+            return;
+        }
+
+        long deadline = System.nanoTime() + budgetNanos;
+        long seed = view.nextLong();
+        int workers = maxRollouts > 0 ? Math.min(PARALLELISM, maxRollouts) : PARALLELISM;
+        int[][] visits = new int[workers][moves.size()];
+        double[][] rewards = new double[workers][moves.size()];
+
+        List<Future<?>> futures = new ArrayList<>();
+        boolean finished = false;
+        try {
+            for (int w = 1; w < workers; w++){
+                final int worker = w;
+                futures.add(WORKERS.submit(() -> search(worker, workers, view.getSeat(), moves,
+                        deadline, seed, visits[worker], rewards[worker])));
+            }
+            search(0, workers, view.getSeat(), moves, deadline, seed, visits[0], rewards[0]);
+            for (Future<?> future : futures){
+                future.get();
+            }
+            finished = true;
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e){
+            throw new IllegalStateException("A search failed.", e.getCause());
+        } finally {
+            if (!finished){
+                abandon(futures);
+            }
+        }
+        if (!finished){
+            // the workers may still be counting, so their counts are not
+            // read; researching twice is always allowed
+            copy(moves.get(0), choice);
+            return;
+        }
+
+        // the most visited move is the one UCB1 trusted most
+        int best = 0;
+        int bestVisits = -1;
+        double bestReward = 0;
+        for (int m = 0; m < moves.size(); m++){
+            int n = 0;
+            double reward = 0;
+            for (int w = 0; w < workers; w++){
+                n += visits[w][m];
+                reward += rewards[w][m];
+            }
+            rollouts += n;
+            if (n > bestVisits || (n == bestVisits && reward > bestReward)){
+                best = m;
+                bestVisits = n;
+                bestReward = reward;
+            }
+        }
+        copy(moves.get(best), choice);
+    }
+
+    /**
+     * Makes the belief a copy of the game that holds only what the Player
+     * knows: every opponent is where the Player thinks it is, and nothing
+     * the Player cannot see is carried over from the truth.
+     */
+    private void believe(GameView view){
+        GameState state = view.getState();
+        int size = state.size;
+        if (belief == null || belief.size != size){
+            belief = state.copy();
+            for (int w = 0; w < scratch.length; w++){
+                scratch[w] = null;
+            }
+            estimates = new int[size];
+            threats = new int[size];
+            noStamps = new long[size];
+        }else{
+            belief.copyFrom(state);
+        }
+        int seat = view.getSeat();
+        for (int o = 0; o < size; o++){
+            if (o != seat){
+                belief.researchPoints[o] = view.getLastKnown(o) + view.getTurnsSinceLastEspionage();
+            }
+        }
+        System.arraycopy(belief.researchPoints, 0, estimates, 0, size);
+        for (int o = 0; o < size; o++){
+            threats[o] = o == seat ? Player.BASE_THREAT : view.getThreat(o);
+        }
+        int ownThreat = threats[seat];
+
+        for (int o = 0; o < size; o++){
+            if (o == seat){
+                continue;
+            }
+            // the opponent sees the threats the Player sees, and fears the
+            // Player as much as the Player fears it
+            threats[seat] = threats[o];
+            belief.knowledge.setRow(o, estimates, threats);
+            threats[seat] = ownThreat;
+            belief.turnsSinceLastEspionage[o] = view.getTurnsSinceLastEspionage();
+            belief.espionageLevel[o] = 0;
+            belief.decisionOne[o] = (byte) Model.Decision.NONE.ordinal();
+            belief.decisionTwo[o] = (byte) Model.Decision.NONE.ordinal();
+            belief.sabotageTargetOne[o] = GameState.NO_TARGET;
+            belief.sabotageTargetTwo[o] = GameState.NO_TARGET;
+            belief.nuclearTarget[o] = GameState.NO_TARGET;
+            belief.outcomes[o] = 0;
+            Player opponent = belief.players[o];
+            onlyBy(opponent.recentlySabotagedBy, seat);
+            onlyBy(opponent.recentlyNukedBy, seat);
+            onlyBy(opponent.recentlyNukeFailedBy, seat);
+        }
+        belief.leaderboard.rebuild(belief.researchPoints, belief.leaderboard.getTurnsResolved(), noStamps, 0);
+    }
+
+    /** Forgets every attacker but the Player, whose own attacks it knows of. */
+    private static void onlyBy(BitSet attackers, int seat){
+        boolean mine = attackers.get(seat);
+        attackers.clear();
+        attackers.set(seat, mine);
+    }
+
+    /**
+     * Lists the moves worth trying: every ordered pair of research,
+     * espionage and sabotage against one of the most advanced opponents,
+     * and a nuclear strike against each of those opponents.
+     */
+    private static List<Choice> candidateMoves(GameView view){
+        int seat = view.getSeat();
+        int[] targets = new int[Math.min(CANDIDATE_TARGETS, view.size() - 1)];
+        int count = 0;
+        for (int o = 0; o < view.size(); o++){
+            if (o == seat){
+                continue;
+            }
+            if (count < targets.length){
+                targets[count++] = o;
+            }else if (isAhead(view, o, targets[count - 1])){
+                targets[count - 1] = o;
+            }else{
+                continue;
+            }
+            for (int x = count - 1; x > 0 && isAhead(view, targets[x], targets[x - 1]); x--){
+                int t = targets[x];
+                targets[x] = targets[x - 1];
+                targets[x - 1] = t;
+            }
+        }
+
+        // a single action: a simple decision, or sabotage against a target
+        int actions = SIMPLE.length + targets.length;
+        List<Choice> moves = new ArrayList<>();
+        for (int one = 0; one < actions; one++){
+            for (int two = 0; two < actions; two++){
+                Choice move = new Choice();
+                move.setDecisions(decision(one), decision(two));
+                move.setSabotageTargets(target(one, targets), target(two, targets));
+                moves.add(move);
+            }
+        }
+        if (view.isNuclearAvailable()){
+            for (int target : targets){
+                Choice move = new Choice();
+                move.setDecisions(Model.Decision.NUCLEAR, Model.Decision.NUCLEAR);
+                move.setNuclearTarget(target);
+                moves.add(move);
+            }
+        }
+        return moves;
+    }
+
+    private static boolean isAhead(GameView view, int o, int other){
+        if (view.getLastKnown(o) != view.getLastKnown(other)){
+            return view.getLastKnown(o) > view.getLastKnown(other);
+        }
+        return view.getThreat(o) > view.getThreat(other);
+    }
+
+    private static Model.Decision decision(int action){
+        return action < SIMPLE.length ? SIMPLE[action] : Model.Decision.SABOTAGE;
+    }
+
+    private static int target(int action, int[] targets){
+        return action < SIMPLE.length ? GameState.NO_TARGET : targets[action - SIMPLE.length];
+    }
+
+    /**
+     * Stops the searches of a move that was given up on. A search that is
+     * still running may go on writing to the copies of the game it was
+     * handed, so the next move gets fresh ones.
+     */
+    private void abandon(List<Future<?>> futures){
+        for (Future<?> future : futures){
+            future.cancel(true);
+        }
+        belief = null;
+        for (int w = 0; w < scratch.length; w++){
+            scratch[w] = null;
+        }
+    }
+
+    private static void copy(Choice move, Choice choice){
+        choice.setDecisions(move.getDecisionOne(), move.getDecisionTwo());
+        choice.setSabotageTargets(move.getSabotageTargetOne(), move.getSabotageTargetTwo());
+        choice.setNuclearTarget(move.getNuclearTarget());
+    }
+
+    /** One worker's search: UCB1 over the moves, until time or rollouts run out. */
+    private void search(int worker, int workers, int seat, List<Choice> moves, long deadline, long seed,
+                        int[] visits, double[] rewards){
+        GameState from = belief;
+        if (scratch[worker] == null){
+            scratch[worker] = from.copy();
+        }
+        GameState sim = scratch[worker];
+        int limit = maxRollouts > 0
+                ? maxRollouts / workers + (worker < maxRollouts % workers ? 1 : 0)
+                : Integer.MAX_VALUE;
+        for (int n = 0; n < limit; n++){
+            if (maxRollouts == 0 && n > 0 && System.nanoTime() >= deadline){
+                break;
+            }
+            if (Thread.currentThread().isInterrupted()){
+                break;
+            }
+            int m = select(visits, rewards, n);
+            long rolloutSeed = GameRandom.derive(seed, (long) n * workers + worker);
+            rewards[m] += rollout(from, sim, seat, moves.get(m), rolloutSeed);
+            visits[m]++;
+        }
+    }
+
+    private static int select(int[] visits, double[] rewards, int total){
+        for (int m = 0; m < visits.length; m++){
+            if (visits[m] == 0){
+                return m;
+            }
+        }
+        double log = Math.log(total);
+        int best = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int m = 0; m < visits.length; m++){
+            double score = rewards[m] / visits[m] + EXPLORATION * Math.sqrt(log / visits[m]);
+            if (score > bestScore){
+                best = m;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plays the move out from a copy of the belief, then lets every Player
+     * follow the heuristic until somebody wins or the horizon is reached.
+     *
+     * @return 1 for a win, a share of it for a tie, 0 for a loss, and
+     *      otherwise somewhere in between by the lead the Player ended with
+     */
+    private double rollout(GameState from, GameState sim, int seat, Choice move, long seed){
+        sim.copyFrom(from);
+        sim.random.reseed(seed);
+        int start = sim.turn;
+
+        for (int s = 0; s < sim.size; s++){
+            if (s == seat){
+                sim.players[s].forceDecision(move, sim.turn);
+            }else{
+                sim.players[s].computerChooseDecision(sim.turn);
+            }
+        }
+        TurnResolver.resolve(sim);
+        TurnResolver.updateEspionage(sim);
+
+        while (sim.getMaxResearchPoints() < Model.RESEARCH_TARGET && sim.turn - start < horizon){
+            int turn = ++sim.turn;
+            TurnResolver.chooseComputerDecisions(sim, turn);
+            TurnResolver.resolve(sim);
+            TurnResolver.updateEspionage(sim);
+        }
+        return score(sim, seat);
+    }
+
+    private static double score(GameState sim, int seat){
+        int mine = sim.researchPoints[seat];
+        int best = Integer.MIN_VALUE;
+        int tied = 1;
+        for (int o = 0; o < sim.size; o++){
+            if (o == seat){
+                continue;
+            }
+            if (sim.researchPoints[o] > best){
+                best = sim.researchPoints[o];
+            }
+            if (sim.researchPoints[o] == mine){
+                tied++;
+            }
+        }
+        if (Math.max(mine, best) >= Model.RESEARCH_TARGET){
+            return mine > best ? 1 : mine == best ? 1.0 / tied : 0;
+        }
+        double lead = (mine - best) / (double) Model.RESEARCH_TARGET;
+        return 0.5 + 0.5 * Math.max(-1, Math.min(1, lead));
+    }
+
+    /** Returns the number of rollouts played so far in this game. */
+    public long getRollouts(){
+        return rollouts;
+    }
+
+    @Override
+    public String getName(){
+        return maxRollouts > 0 ? "mcts:" + maxRollouts : "mcts";
+    }
+
+}
@@ -1,9 +1,11 @@
 package ArmsRace;
 
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Random;
-import java.util.Scanner;
+import java.util.List;
+import java.util.SplittableRandom;
 
 /**
  * Model representing the overall State of the game, without the clutter of
@@ -20,270 +22,479 @@ public class Model {
 	// CONSTANTS
 
     private final int DEFAULT_NUM_OPPONENTS = 2;
-    private final int RESEARCH_TARGET = 20;
-    static Random rand = new Random();
-    private final Scanner in = new Scanner(System.in);
+    static final int RESEARCH_TARGET = 20;
+    // the number of Players listed when the game ends
+    private static final int STANDINGS_SHOWN = 10;
+    // the seed of every interactive game, so that games can be compared
+    static final long SEED = 1000;
+    private final SplittableRandom rand = new SplittableRandom(SEED);
 
 	// STATE
 
-    private Player playerOne;
-	private HashSet<Player> COMplayers = new HashSet<>();
+    // terminals[seat] is the terminal of the human in that seat, or null
+    // for a computer; at the console, the human sits in seat 0. Everything
+    // the human sees is written through views[seat].
+    private GameState state;
+    private Player[] players;
+    private Terminal[] terminals;
+    private View[] views;
+    private SpectatorServer.Feed spectator;
 	private ArrayList<Player> winners = new ArrayList<>();
     private int numOpponents = 0;
+    private long turnTimeoutMillis = 0;
 
 	/** 
 	 *	Constructor. Initializes the base state for the game, including the 
 	 *	name of the country representing the user, the number of opponents and 
 	 *	the names of those opponents. It also initializes the opponent lists.
-	 *	@param opponentNameList: a list of possible opponent names, randomly 
-	 *			selected
+	 *	@param nameSource: the possible opponent names, randomly selected;
+	 *			once they run out, names are generated
 	 */
-    public Model(ArrayList<String> opponentNameList){
-        rand.setSeed(1000);
+    public Model(NameSource nameSource){
+        Terminal console = new ConsoleTerminal();
+        PrintStream out = console.out();
         String name = null;
 
-        while (name == null) {
-            System.out.print("Enter your country's name: ");
-            name = in.next();
-            if (!name.matches("[a-zA-Z]+")){
-                System.out.println("Invalid name. Pleae choose a name with " +
-                                    "only alphabetical characters.");
-                name = null;
+        try {
+            while (name == null) {
+                out.print("Enter your country's name: ");
+                name = console.next(Terminal.NO_DEADLINE);
+                if (!name.matches("[a-zA-Z]+")){
+                    out.println("Invalid name. Pleae choose a name with " +
+                                        "only alphabetical characters.");
+                    name = null;
+                }
             }
+
+            while (numOpponents == 0){
+                out.print("Enter number of opponents: ");
+                try{
+                    numOpponents = Integer.parseInt(console.next(Terminal.NO_DEADLINE));
+                }catch (NumberFormatException n){
+                    out.printf(  "Invalid number. Setting default: %d.\n",
+                            DEFAULT_NUM_OPPONENTS);
+                    numOpponents = DEFAULT_NUM_OPPONENTS;
+                }
+                if (numOpponents < DEFAULT_NUM_OPPONENTS){
+                    out.printf("Number of opponents must be at least %d.\n",
+                            DEFAULT_NUM_OPPONENTS);
+                    numOpponents = 0;
+                }
+            }
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
         }
 
 		// The computer won't choose a name that the player has already chosen.
-        if (opponentNameList.contains(name)){
-            opponentNameList.remove(name);
+        ArrayList<String> names = new ArrayList<>(numOpponents + 1);
+        names.add(name);
+        names.addAll(nameSource.pick(numOpponents, rand, name));
+        // too few names: the rest are generated, and unlike each other
+        nameSource.fill(names, numOpponents + 1);
+
+        Terminal[] terminals = new Terminal[names.size()];
+        terminals[0] = console;
+        setUp(names, terminals, SEED);
+    }
+
+    /**
+     * Constructor. Sets up a game in which any number of seats are played by
+     * humans, for instance over connections to the GameServer.
+     *
+     * @param names: the name of the Player in each seat
+     * @param terminals: the terminal of the human in each seat, or null for
+     *      seats played by the computer
+     * @param seed: the seed all randomness in the game is derived from
+     */
+    public Model(List<String> names, Terminal[] terminals, long seed){
+        if (names.size() != terminals.length){
+            throw new IllegalArgumentException("Every seat needs a name and a terminal or null.");
         }
-        playerOne = new Player(name, false);
-        COMplayers.add(playerOne); // TEMPORARY, will be removed by end of constructor
-
-        while (numOpponents == 0){
-            System.out.print("Enter number of opponents: ");
-            try{
-                numOpponents = Integer.parseInt(in.next());
-            }catch (NumberFormatException n){
-                System.out.printf(  "Invalid number. Setting default: %d.\n",
-                        DEFAULT_NUM_OPPONENTS);
-                numOpponents = DEFAULT_NUM_OPPONENTS;
-            }
-            if (numOpponents < DEFAULT_NUM_OPPONENTS){
-                System.out.printf("Number of opponents must be at least %d.\n",
-                        DEFAULT_NUM_OPPONENTS);
-                numOpponents = 0;
+        numOpponents = names.size() - 1;
+        setUp(names, terminals.clone(), seed);
+    }
+
+    private void setUp(List<String> names, Terminal[] terminals, long seed){
+        this.terminals = terminals;
+        this.views = new View[terminals.length];
+        for (int seat = 0; seat < terminals.length; seat++){
+            if (terminals[seat] != null){
+                views[seat] = new View(terminals[seat]);
             }
         }
-
-        System.out.print("Your opponents are: ");
-        String currName;
-        for (int x = 0; x < numOpponents; x++){
-			if (opponentNameList.isEmpty()){ currName = "NULL"; } // too few names
-            else {
-				currName = opponentNameList.get(rand.nextInt(opponentNameList.size()));
-            	opponentNameList.remove(currName);
-			}
-            COMplayers.add(new Player(currName, true));
-            if ((numOpponents - x) == 2){
-                System.out.printf("%s, and ", currName);
-            }else if ((numOpponents - x) == 1){
-                System.out.printf("%s.\n", currName);
-            }else {
-                System.out.print(String.format("%s, ", currName));
+        boolean[] computer = new boolean[names.size()];
+        for (int seat = 0; seat < computer.length; seat++){
+            computer[seat] = terminals[seat] == null;
+        }
+        state = new GameState(names, computer, seed);
+        players = new Player[names.size()];
+        for (int seat = 0; seat < players.length; seat++){
+            players[seat] = new Player(state, seat);
+        }
+        for (int seat = 0; seat < players.length; seat++){
+            if (terminals[seat] != null){
+                announceOpponents(seat);
             }
         }
+    }
 
-		// Initialize opponent lists.
-		for (Player p : COMplayers){
-			HashSet<Player> pOpponents = new HashSet<>();
-			pOpponents.addAll(COMplayers);
-			pOpponents.remove(p);
-			p.addOpponents(pOpponents);
-		}
+    /**
+     * Gives every human a limited time to choose their actions each turn.
+     * Humans who run out of time spend the turn on research.
+     *
+     * @param millis: the time per turn, or 0 to wait for as long as it takes
+     */
+    public void setTurnTimeout(long millis){
+        if (millis < 0){
+            throw new IllegalArgumentException("The turn timeout cannot be negative.");
+        }
+        this.turnTimeoutMillis = millis;
+    }
 
-        COMplayers.remove(playerOne);
+    /**
+     * Lets spectators watch the game, see SpectatorServer.
+     *
+     * @param server: the server to publish every turn to, or null
+     */
+    public void setSpectator(SpectatorServer server){
+        spectator = server == null ? null : server.feed(state.names[0] + "'s game", state);
+    }
 
+    /** Tells the human in the given seat who they are up against. */
+    private void announceOpponents(int seat){
+        StringBuilder out = new StringBuilder("Your opponents are: ");
+        int remaining = numOpponents;
+        for (int o = 0; o < players.length; o++){
+            if (o == seat){
+                continue;
+            }
+            String currName = state.names[o];
+            if (remaining == 2){
+                out.append(currName).append(", and ");
+            }else if (remaining == 1){
+                out.append(currName).append('.');
+            }else {
+                out.append(currName).append(", ");
+            }
+            remaining--;
+        }
+        views[seat].news(out.toString());
     }
 
 	/**
 	 * Runs the game. Turns proceed in this order:
 	 * 	1) Evaluate whether or not the game has been won. If it has, announce
 	 *		the winner and quit.
-	 *	2) Let the player take their turn, taking user input and then executing
-	 *		whatever actions were chosen.
+	 *	2) Let the humans take their turns, taking user input and then executing
+	 *		whatever actions were chosen. Every human is asked on a virtual
+	 *		thread of their own, so that they can all answer at the same time.
 	 *	3) Execute the CPU's turns.
 	 *	4) Announce the results, then repeat.
 	 */
 	public void runGame(){
+		try {
+			playGame();
+		} finally {
+			// takes the game off the spectators' page if it failed
+			if (spectator != null){
+				spectator.close();
+			}
+		}
+	}
 
-		int userInput = -1;
-		int curr_turn = 0;
-
-        Decision d1 = Decision.NONE;
-        Decision d2 = Decision.NONE;
+	private void playGame(){
 
-        Player sabotageTarget;
-        Player target;
+		int curr_turn = 0;
 
 		while (true){
 			curr_turn++;
-
-			// Evaluate which players have won, if any
-            if (playerOne.getResearchPoints() >= RESEARCH_TARGET){
-                winners.add(playerOne);
-            }
-			for (Player p : COMplayers){
-				if (p.getResearchPoints() >= RESEARCH_TARGET){
-					winners.add(p);
+			state.turn = curr_turn;
+
+			// Evaluate which players have won, if any: those who share the
+			// best score, once it reaches the target
+			long winCheck = GameMetrics.begin(state);
+			FlightEvents.Phase winCheckEvent = new FlightEvents.Phase();
+			winCheckEvent.begin();
+			if (state.getMaxResearchPoints() >= RESEARCH_TARGET){
+				int count = state.leaderboard.countLeaders();
+				for (int rank = 0; rank < count; rank++){
+					winners.add(players[state.leaderboard.getLeader(rank)]);
 				}
 			}
+			GameMetrics.end(GameMetrics.Phase.WIN_CHECK, winCheck);
+			winCheckEvent.commit(state, GameMetrics.Phase.WIN_CHECK);
 			// If any players have won, quit, UNLESS there's a tie
 			if (winners.size() > 0){
 				if (winners.size() > 1){
-					System.out.println("There's a tie!");
+					broadcast("There's a tie!");
 					breaktie(winners);
 				}
-				System.out.println(String.format("We have a winner: %s!", winners.get(0).getID()));
+				broadcast(String.format("We have a winner: %s!", winners.get(0).getID()));
 				break;
 			}
 
-            // game turn UI (basic console text for now)
-			System.out.println("\n------------------------------");
-			System.out.println(String.format("-----------TURN %d-------------", curr_turn));
-			System.out.println("------------------------------\n");
+            long deadline = turnTimeoutMillis == 0 ? Terminal.NO_DEADLINE
+                    : System.nanoTime() + turnTimeoutMillis * 1000000;
+            final int turn = curr_turn;
+            Thread[] humans = new Thread[players.length];
+            for (int seat = 0; seat < players.length; seat++){
+                if (terminals[seat] != null){
+                    final int human = seat;
+                    humans[seat] = Thread.ofVirtual().name("ArmsRace-human-" + seat)
+                            .start(() -> humanTurn(human, turn, deadline));
+                }
+            }
+            try {
+                for (Thread human : humans){
+                    if (human != null){
+                        human.join();
+                    }
+                }
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            TurnResolver.chooseComputerDecisions(state, curr_turn);
+            TurnResolver.resolve(state);
+            reportTurn();
+            if (spectator != null){
+                spectator.publish();
+            }
+            TurnResolver.updateEspionage(state);
 
-            playerOne.damageReport();
+            GameEvents.turnSummary(state);
 
-            System.out.println(String.format("CURRENT RESEARCH POINTS: %d", playerOne.getResearchPoints()));
-            playerOne.printOpponentsValues();
+		}
 
-			System.out.println("\tAvailable actions:");
-			if (curr_turn == 5){ System.out.println("The NUCLEAR option is now available."); }
-			if (curr_turn < 5){
-				System.out.println("\tRESEARCH (0)\t|\tESPIONAGE (1)\t|\tSABOTAGE (2)");
-			}else{
-				System.out.println("\tRESEARCH (0)\t|\tESPIONAGE (1)\t|\tSABOTAGE (2)\t|\tNUCLEAR (3)");
+		if (spectator != null){
+			int[] winnerSeats = new int[winners.size()];
+			for (int x = 0; x < winnerSeats.length; x++){
+				winnerSeats[x] = winners.get(x).getSeat();
 			}
-			
-			// user selects actions for turn
-            if (curr_turn < 5){
-                while (userInput < 0 || userInput > 2){
-                    System.out.println("Please choose your first action.");
-                    userInput = in.nextInt();
-                }
-            }else{
-                while (userInput < 0 || userInput > 3){
-                    System.out.println("Please choose your first action.");
-                    userInput = in.nextInt();
-                }
+			spectator.finish(winnerSeats);
+		}
+		broadcast("The winner is: " + winners.get(0).getID() + "!");
+		reportStandings();
+		broadcast("The game will now exit.");
+		for (View view : views){
+			if (view != null){
+				view.finish();
+			}
+		}
+	}
+
+    /**
+     * Lets the human in the given seat choose their actions for the turn.
+     * A human who runs out of time spends the turn on research; a human who
+     * disconnects is replaced by the computer for the rest of the game.
+     * Anything typed since the last turn's prompts is ignored.
+     */
+    private void humanTurn(int seat, int turn, long deadline){
+        Terminal terminal = terminals[seat];
+        try {
+            terminal.discardInput();
+            if (!humanChooseDecision(seat, turn, deadline)){
+                players[seat].playerChooseDecision(Decision.RESEARCH, Decision.RESEARCH);
+                views[seat].news("Time is up! Your advisors have chosen RESEARCH and RESEARCH.");
             }
+        } catch (IOException e){
+            terminals[seat] = null;
+            views[seat] = null;
+            state.computer[seat] = true;
+            try {
+                terminal.close();
+            } catch (IOException ignored){
+                // the connection is gone either way
+            }
+        }
+    }
+
+    /**
+     * Shows the human in the given seat the state of the game, then asks
+     * them for their actions.
+     *
+     * @return false if the human ran out of time
+     */
+    private boolean humanChooseDecision(int seat, int curr_turn, long deadline) throws IOException {
+        Player player = players[seat];
+        int userInput;
+
+        Decision d1 = Decision.NONE;
+        Decision d2 = Decision.NONE;
+
+        Player target;
 
-            // those actions are set
-			switch (userInput){
-				case 0:
-					d1 = Decision.RESEARCH;
+        // game turn UI, as one screen
+        views[seat].showTurn(player, curr_turn);
+
+		// user selects actions for turn
+        userInput = playerGetAction(seat, "Please choose your first action.",
+                curr_turn < 5 ? 2 : 3, deadline);
+
+        // those actions are set
+		switch (userInput){
+            case -1:
+                return false;
+			case 0:
+				d1 = Decision.RESEARCH;
+                break;
+            case 1:
+                d1 = Decision.ESPIONAGE;
+                break;
+            case 2:
+                d1 = Decision.SABOTAGE;
+                target = playerGetTarget(seat, deadline);
+                if (target == null){ return false; }
+                player.playerSetTarget(d1, target, true);
+                break;
+            case 3:
+                d1 = Decision.NUCLEAR;
+                d2 = Decision.NUCLEAR;
+                target = playerGetTarget(seat, deadline);
+                if (target == null){ return false; }
+                player.playerSetTarget(d1, target, true);
+                break;
+		}
+
+        if (userInput != 3){
+            // user selects actions for turn
+            userInput = playerGetAction(seat, "Please choose your second action.", 2, deadline);
+            switch (userInput){
+                case -1:
+                    return false;
+                case 0:
+                    d2 = Decision.RESEARCH;
                     break;
                 case 1:
-                    d1 = Decision.ESPIONAGE;
+                    d2 = Decision.ESPIONAGE;
                     break;
                 case 2:
-                    d1 = Decision.SABOTAGE;
-                    target = playerGetTarget();
-                    playerOne.playerSetTarget(d1, target, true);
-                    break;
-                case 3:
-                    d1 = Decision.NUCLEAR;
-                    d2 = Decision.NUCLEAR;
-                    target = playerGetTarget();
-                    playerOne.playerSetTarget(d1, target, true);
+                    d2 = Decision.SABOTAGE;
+                    target = playerGetTarget(seat, deadline);
+                    if (target == null){ return false; }
+                    player.playerSetTarget(d2, target, false);
                     break;
-			}
-
-            if (userInput != 3){
-                // user selects actions for turn
-                userInput = -1;
-                while (userInput < 0 || userInput > 2){
-                    System.out.println("Please choose your second action.");
-                    userInput = in.nextInt();
-                }
-                switch (userInput){
-                    case 0:
-                        d2 = Decision.RESEARCH;
-                        break;
-                    case 1:
-                        d2 = Decision.ESPIONAGE;
-                        break;
-                    case 2:
-                        d2 = Decision.SABOTAGE;
-                        target = playerGetTarget();
-                        playerOne.playerSetTarget(d2, target, false);
-                        break;
-                }
             }
+        }
 
-            playerOne.playerChooseDecision(d1, d2);
-
-            for (Player p : COMplayers){
-                p.computerChooseDecision(curr_turn);
-            }
+        player.playerChooseDecision(d1, d2);
+        return true;
+    }
 
-            playerOne.passTurn();
-            for (Player p : COMplayers){
-                p.passTurn();
-            }
-            playerOne.updateEspionage();
-            for (Player p : COMplayers){
-                p.updateEspionage();
+    /**
+     * Prompts a human until they choose one of the numbered actions.
+     *
+     * @param max: the highest action on offer
+     * @return the action, or -1 if the human ran out of time
+     */
+    private int playerGetAction(int seat, String prompt, int max, long deadline) throws IOException {
+        Terminal terminal = terminals[seat];
+        int userInput = -1;
+        while (userInput < 0 || userInput > max){
+            views[seat].prompt(prompt);
+            String word = terminal.next(deadline);
+            if (word == null){
+                return -1;
             }
-
-            // REPORT (DEBUG)
-            playerOne.debugPrint("-----------\nREPORT: POINTS\n-----------");
-            playerOne.debugPrint(String.format("%s : %d", playerOne.getID(), playerOne.getResearchPoints()));
-            for (Player p : COMplayers) {
-                p.debugPrint(String.format("%s : %d", p.getID(), p.getResearchPoints()));
+            try {
+                userInput = Integer.parseInt(word);
+            } catch (NumberFormatException e){
+                userInput = -1;
             }
-            playerOne.debugPrint("-----------");
-
-            userInput = -1;
-            d1 = Decision.NONE;
-            d2 = Decision.NONE;
-
-		}
-
-		System.out.println("The winner is: " + winners.get(0).getID() + "!");
-		System.out.println("The game will now exit.");
-	}
+        }
+        return userInput;
+    }
 
     /**
      * Prompts a Player to choose a target.
+     *
+     * @param seat: the seat of the human choosing
+     * @param deadline: when the human runs out of time, see Terminal.next()
+     * @return the target, or null if the human ran out of time
      * */
-    public Player playerGetTarget(){
+    public Player playerGetTarget(int seat, long deadline) throws IOException {
+        Terminal terminal = terminals[seat];
         String userInput = "";
         Player.Opponent target = null;
 
-        System.out.println("------------------");
-        System.out.println("AVAILABLE TARGETS:");
-        for (Player p : COMplayers){
-            System.out.println(p.getID());
-        }
-        System.out.println("------------------");
+        views[seat].showTargets(state, seat);
 
         // user selects target for turn
         while (target == null){
-            System.out.println("Please choose your target.");
-            userInput = in.next();
-            target = playerOne.opponentLookup(userInput);
+            views[seat].prompt("Please choose your target.");
+            userInput = terminal.next(deadline);
+            if (userInput == null){
+                return null;
+            }
+            target = players[seat].opponentLookup(userInput);
         }
 
-        return target.getPlayer();
+        return players[target.getSeat()];
 
     }
 
-    public void breaktie(ArrayList<Player> winners){
+    /**
+     * Tells the humans what happened this turn: every nuclear strike, and
+     * each human's own failed research.
+     */
+    private void reportTurn(){
+        for (int seat = 0; seat < players.length; seat++){
+            if (state.getDecisionOne(seat) == Decision.NUCLEAR && state.getDecisionTwo(seat) == Decision.NUCLEAR){
+                boolean landed = (state.outcomes[seat] & GameState.NUKE_LANDED) != 0;
+                String line = String.format("%s's attempted nuclear strike against %s... %s",
+                        state.names[seat], state.names[state.nuclearTarget[seat]],
+                        landed ? "SUCCEEDED." : "FAILED.");
+                for (View view : views){
+                    if (view != null){
+                        view.news(line);
+                    }
+                }
+            }
+            View view = views[seat];
+            if (view == null){
+                continue;
+            }
+            if (state.getDecisionOne(seat) == Decision.RESEARCH
+                    && (state.outcomes[seat] & GameState.RESEARCH_ONE_SUCCEEDED) == 0){
+                view.news("RESEARCH FAILED!");
+            }
+            if (state.getDecisionTwo(seat) == Decision.RESEARCH
+                    && (state.outcomes[seat] & GameState.RESEARCH_TWO_SUCCEEDED) == 0){
+                view.news("RESEARCH FAILED!");
+            }
+        }
+    }
 
+    /** Prints a line on the terminal of every human still in the game. */
+    private void broadcast(String line){
+        for (View view : views){
+            if (view != null){
+                view.println(line);
+            }
+        }
+    }
 
+    /**
+     * Orders Players who share the best score so that the winner of the tie
+     * comes first: whoever reached the score first, then the lowest seat.
+     *
+     * @param winners: the Players tied for the win
+     */
+    public void breaktie(ArrayList<Player> winners){
+        winners.sort((a, b) -> a == b ? 0
+                : state.leaderboard.isAhead(a.getSeat(), b.getSeat()) ? -1 : 1);
+    }
+
+    /** Tells every human how the best Players finished. */
+    private void reportStandings(){
+        StringBuilder standings = new StringBuilder("FINAL STANDINGS:\n");
+        int rank = 1;
+        for (int seat : state.leaderboard.getTop(STANDINGS_SHOWN)){
+            standings.append(String.format("%2d. %s: %d%n", rank++, state.names[seat], state.researchPoints[seat]));
+        }
+        broadcast(standings.append("-------------").toString());
     }
 
 
 }
-
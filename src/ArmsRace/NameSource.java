@@ -0,0 +1,224 @@
+package ArmsRace;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * The names computers play under. Names are read from a file of one name
+ * per line, which is memory-mapped and scanned for line breaks rather than
+ * parsed, and every distinct name is kept as a single String however often
+ * the file lists it. When a game needs more names than the file holds, the
+ * rest are generated.
+ *
+ * Opponents are drawn from the names by a partial Fisher-Yates shuffle
+ * that only remembers the positions it has swapped, so drawing k names
+ * costs O(k) however many the source holds, and the names themselves are
+ * shared by every draw rather than copied.
+ *
+ * Generated names are made of two-letter syllables and a three-letter
+ * ending, numbered in bijective base: the n-th name is always the same,
+ * no two are alike, and any that the file already holds are skipped, so
+ * every Player gets an ID of its own.
+ */
+public final class NameSource {
+
+	// CONSTANTS
+
+    // every syllable two letters and every ending three, so that a name can
+    // only be read back one way
+    private static final String[] SYLLABLES = {
+            "ba", "da", "ka", "la", "ma", "na", "ra", "sa",
+            "to", "vo", "ze", "ri", "mo", "lu", "ne", "gi"};
+    private static final String[] ENDINGS = {
+            "nia", "ria", "tan", "dor", "lia", "sia", "via", "nar"};
+
+	// STATE
+
+    private final List<String> names;
+    // where each name is listed
+    private final Map<String, Integer> index;
+
+    private NameSource(List<String> names){
+        this.names = Collections.unmodifiableList(names);
+        this.index = new HashMap<>();
+        for (int x = 0; x < names.size(); x++){
+            index.put(names.get(x), x);
+        }
+    }
+
+    /** Returns a source without any names of its own: every name is generated. */
+    public static NameSource empty(){
+        return new NameSource(new ArrayList<>());
+    }
+
+    /**
+     * Returns a source of the given names. Blank names are skipped, as is a
+     * name listed before.
+     *
+     * @param names: the names, in order
+     */
+    public static NameSource of(List<String> names){
+        List<String> kept = new ArrayList<>(names.size());
+        Set<String> seen = new HashSet<>();
+        for (String name : names){
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty() && seen.add(trimmed)){
+                kept.add(trimmed);
+            }
+        }
+        return new NameSource(kept);
+    }
+
+    /**
+     * Loads the names from a UTF-8 file of one name per line. Blank lines
+     * are skipped, as is a name listed before.
+     *
+     * @param file: the file of names
+     */
+    public static NameSource load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE){
+                throw new IllegalArgumentException("Name files are limited to 2 GB: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+
+            List<String> names = new ArrayList<>();
+            Map<String, String> interned = new HashMap<>();
+            byte[] line = new byte[64];
+            int start = 0;
+            int end = (int) length;
+            while (start < end){
+                int stop = start;
+                while (stop < end && buffer.get(stop) != '\n'){
+                    stop++;
+                }
+                int last = stop;
+                if (last > start && buffer.get(last - 1) == '\r'){
+                    last--;
+                }
+                int size = last - start;
+                if (size > 0){
+                    if (size > line.length){
+                        line = Arrays.copyOf(line, Math.max(size, line.length * 2));
+                    }
+                    buffer.get(start, line, 0, size);
+                    String name = new String(line, 0, size, StandardCharsets.UTF_8).trim();
+                    if (!name.isEmpty() && interned.putIfAbsent(name, name) == null){
+                        names.add(name);
+                    }
+                }
+                start = stop + 1;
+            }
+            return new NameSource(names);
+        }
+    }
+
+    /** Returns the names the source holds, in the order they were listed. */
+    public List<String> getNames(){
+        return names;
+    }
+
+    /** Returns the number of names the source holds. */
+    public int size(){
+        return names.size();
+    }
+
+    /** Returns whether the source holds the given name. */
+    public boolean contains(String name){
+        return index.containsKey(name);
+    }
+
+    /**
+     * Draws names at random, without drawing any twice.
+     *
+     * @param count: the number of names wanted
+     * @param rand: where the randomness comes from
+     * @param excluded: a name not to draw, or null
+     * @return count names, or every name but the excluded one if the
+     *      source holds too few
+     */
+    public List<String> pick(int count, SplittableRandom rand, String excluded){
+        int pool = names.size();
+        // position p of the shuffle holds the name at swapped.get(p), or
+        // the name at p if it has not been swapped
+        Map<Integer, Integer> swapped = new HashMap<>();
+        Integer out = excluded == null ? null : index.get(excluded);
+        if (out != null){
+            pool--;
+            if (out != pool){
+                swapped.put(out, pool);
+            }
+        }
+
+        int picks = Math.min(count, pool);
+        List<String> picked = new ArrayList<>(picks);
+        for (int p = 0; p < picks; p++){
+            int chosen = p + rand.nextInt(pool - p);
+            int name = swapped.getOrDefault(chosen, chosen);
+            swapped.put(chosen, swapped.getOrDefault(p, p));
+            picked.add(names.get(name));
+        }
+        return picked;
+    }
+
+    /**
+     * Adds generated names to a list until it holds the given number of
+     * names. Generated names that the source holds, or that the list
+     * already holds, are skipped.
+     *
+     * @param taken: the names chosen so far, which are added to
+     * @param count: the number of names wanted
+     */
+    public void fill(List<String> taken, int count){
+        if (taken.size() >= count){
+            return;
+        }
+        Set<String> used = new HashSet<>(taken);
+        StringBuilder sb = new StringBuilder();
+        for (long n = 0; taken.size() < count; n++){
+            String name = generate(n, sb);
+            if (!index.containsKey(name) && used.add(name)){
+                taken.add(name);
+            }
+        }
+    }
+
+    /**
+     * Returns the n-th generated name.
+     *
+     * @param n: the number of the name, from 0
+     */
+    public static String generate(long n){
+        return generate(n, new StringBuilder());
+    }
+
+    private static String generate(long n, StringBuilder sb){
+        sb.setLength(0);
+        // the syllables spell n / ENDINGS.length + 1 in bijective base, so
+        // there is always at least one
+        long q = n / ENDINGS.length + 1;
+        while (q > 0){
+            q--;
+            sb.append(SYLLABLES[(int) (q % SYLLABLES.length)]);
+            q /= SYLLABLES.length;
+        }
+        sb.append(ENDINGS[(int) (n % ENDINGS.length)]);
+        sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        return sb.toString();
+    }
+
+}
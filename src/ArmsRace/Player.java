@@ -1,9 +1,6 @@
 package ArmsRace;
 
 import java.util.*;
-import java.util.logging.Level;
-
-import static ArmsRace.Main.LOGGER;
 
 /**
  * Class representing a player in the AI Arms Race game. Available functions
@@ -16,19 +13,12 @@ public class Player {
 
     //  CONSTANTS
 
-    private Random seeder = Model.rand;
-    private Random rand;
-    private static final boolean DEBUG = true;
-
-    private static final int TURN_NUCLEAR_AVAILABLE = 5;
+    static final int TURN_NUCLEAR_AVAILABLE = 5;
 
-    // this is the turn the CPUs place the least weight on research
-    private static final int TURN_RESEARCH_INFLECTION = 5;
     private static final int BASE_NUKE_DEFENSE = 0;
-    private static final int BASE_WEIGHT = 2;
-    private static final int BASE_ADD_THREAT = 2;
-    private static final int BASE_ADD_EXTREME_THREAT = 5;
-    private static final int BASE_NUCLEAR_THREAT_THRESHHOLD = 5;
+
+    // the threat every Player initially sees in every other Player
+    static final int BASE_THREAT = 2;
 
     // chance for research to succeed is 1/this value
     private static final int RESEARCH_DIVISOR = 2;
@@ -36,50 +26,57 @@ public class Player {
 
     //  STATE
 
-    private String ID;
-
-    private boolean computer;
-    private ArrayList<Opponent> opponents;
-
-    private int researchPoints = 0;
-    private int turnsSinceLastEspionage = 0;
-    private int espionageLevel = 0;
-    private Opponent sabotageTargetOne;
-    private Opponent sabotageTargetTwo;
-    private Opponent nuclearTarget;
-    private HashSet<Opponent> recentlySabotagedBy = new HashSet<>();
-    private HashSet<Opponent> recentlyNukedBy = new HashSet<>();
-    private HashSet<Opponent> recentlyNukeFailedBy = new HashSet<>();
-
-    private Model.Decision decisionOne;
-    private Model.Decision decisionTwo;
-
-    /**
-     * Constructor. Initializes state to provided values.
-     *
-     * @param ID: the name of the country this Player represents
-     * @param computer: whether or not this player is a computer
-     */
-    public Player(String ID, boolean computer){
-        this.ID = ID;
-        this.computer = computer;
-        this.rand = new Random();
-        this.rand.setSeed(seeder.nextLong());
-    }
+    // research points, espionage, decisions and targets live in the
+    // GameState, in this Player's seat
+    private final GameState state;
+    private final int seat;
+
+    // the game's generators, and this Player's stream for each purpose;
+    // the decision stream is drawn from through its GameView
+    private final GameRandom random;
+    private final int researchStream;
+    private final int sabotageStream;
+    private final int nukeStream;
+    private final int espionageStream;
+
+    // what this Player knows about its opponents is a row of this matrix
+    private final KnowledgeMatrix knowledge;
+
+    // attackers since this Player last chose its decisions, by seat
+    final BitSet recentlySabotagedBy = new BitSet();
+    final BitSet recentlyNukedBy = new BitSet();
+    final BitSet recentlyNukeFailedBy = new BitSet();
+
+    // how this Player chooses its decisions when it is a computer, what it
+    // is shown of the game, and where its choice goes
+    private Strategy strategy = new HeuristicStrategy();
+    private final GameView view;
+    private final Choice choice = new Choice();
 
     /**
-     * As not all opponents can be added until they are generated, this
-     * function is to be called by the Model once all Player objects are
-     * initialized.
+     * Constructor. Creates the Player sitting in the given seat of a game.
+     * Its name and whether it is a computer are taken from the GameState,
+     * and every other seat of the GameState is its opponent.
      *
-     * @param opponents: the set of Players to add to this Player's list
-     *      of adversaries
+     * @param state: the State of the game this Player takes part in
+     * @param seat: this Player's number in the game. Seats are numbered
+     *      densely from 0, so that Players can be looked up by index, and
+     *      the seat picks this Player's random streams out of the game's.
      */
-    public void addOpponents(HashSet<Player> opp){
-        if (opponents == null){ opponents = new ArrayList<>(); }
-        for (Player p : opp){
-            opponents.add(new Opponent(p));
+    public Player(GameState state, int seat){
+        if (seat < 0 || seat >= state.size){
+            throw new IllegalArgumentException("No such seat: " + seat);
         }
+        this.state = state;
+        this.seat = seat;
+        this.knowledge = state.knowledge;
+        state.players[seat] = this;
+        this.random = state.random;
+        this.researchStream = GameRandom.stream(seat, GameRandom.Purpose.RESEARCH);
+        this.sabotageStream = GameRandom.stream(seat, GameRandom.Purpose.SABOTAGE);
+        this.nukeStream = GameRandom.stream(seat, GameRandom.Purpose.NUKE);
+        this.espionageStream = GameRandom.stream(seat, GameRandom.Purpose.ESPIONAGE);
+        this.view = new GameView(state, seat);
     }
 
     /**
@@ -90,7 +87,7 @@ public class Player {
      * @param d2: the player's second decision 
      */
     public void playerChooseDecision(final Model.Decision d1, final Model.Decision d2){
-        if (computer){
+        if (state.computer[seat]){
             throw new InputMismatchException("Calling playerChooseDecision() on a CPU player."){};
         }
 
@@ -98,8 +95,10 @@ public class Player {
         recentlyNukedBy.clear();
         recentlyNukeFailedBy.clear();
 
-        decisionOne = d1;
-        decisionTwo = d2;
+        state.decisionOne[seat] = (byte) d1.ordinal();
+        state.decisionTwo[seat] = (byte) d2.ordinal();
+        GameEvents.decision(state, seat);
+        GameMetrics.decision(state, seat);
     }
 
     /**
@@ -114,175 +113,206 @@ public class Player {
         if (firstAction) {
             switch (decision) {
                 case SABOTAGE:
-                    sabotageTargetOne = opponentLookup(target.ID);
+                    state.sabotageTargetOne[seat] = target.seat;
                     break;
                 case NUCLEAR:
-                    nuclearTarget = opponentLookup(target.ID);
+                    state.nuclearTarget[seat] = target.seat;
                     break;
             }
         }else{
-            sabotageTargetTwo = opponentLookup(target.ID);
+            state.sabotageTargetTwo[seat] = target.seat;
         }
     }
 
     /**
-     * Runs a simple weighted probability algorithm to have the computer make
-     * a "reasonable" next move based on what it knows about the condition of
-     * its Player opponents. It sets the Decision variables based on this
-     * evaluation.
+     * Has the computer choose its next move with its Strategy, based on
+     * what it knows about the condition of its Player opponents. It first
+     * reassesses the threat of whoever attacked it since its last turn,
+     * then sets the Decision variables to what the Strategy chose.
      *
-     * @param turn: the current turn. The algorithm makes use of the turn
-     *      variable to adjust the weight of certain actions, as different
-     *      actions are more relevant at different portions of the game.
+     * @param turn: the current turn
      */
     public void computerChooseDecision(final int turn){
-        if (!computer){
+        if (!state.computer[seat]){
             throw new InputMismatchException("Calling computerChooseDecision() on a real player."){};
         }
+        FlightEvents.ComputerDecision event = new FlightEvents.ComputerDecision();
+        event.begin();
+        reassessThreats();
+        choice.reset();
+        strategy.choose(view, choice);
+        applyChoice(choice, turn);
+        event.commit(state, seat);
+    }
 
-        double  researchWeight = BASE_WEIGHT,
-                espionageWeight = 0,
-                sabotageWeight = 0,
-                nuclearWeight = 0;
-
-        int     currEspionageValue = 0,
-                maxEspionageValue = 0,
-                currSabotageValue = 0,
-                maxSabotageValue = 0,
-                currNuclearValue = 0,
-                maxNuclearValue = 0,
-                perceivedResearchDifference = 0;
-
-        sabotageTargetOne = null;
-        sabotageTargetTwo = null;
-        nuclearTarget = null;
-
-        researchWeight += Math.sqrt(Math.pow(turn + TURN_RESEARCH_INFLECTION, 2) + BASE_WEIGHT);
-
-        for (Opponent o : opponents){
-            // RE-EVALUATING OPPONENT THREAT LEVEL
-            if (recentlySabotagedBy.contains(o)){
-                recentlySabotagedBy.remove(o);
-                o.updateThreatAmount(Model.Decision.SABOTAGE);
-            }else if (recentlyNukedBy.contains(o)){
-                recentlyNukedBy.remove(o);
-                o.updateThreatAmount(Model.Decision.NUCLEAR);
-            }else{
-                o.updateThreatAmount(Model.Decision.NONE);
-            }
+    /**
+     * The first half of computerChooseDecision() for a batched Strategy:
+     * reassesses the threats, then has the Strategy pick its targets and
+     * weigh its decisions. Any other Strategy makes its whole choice here.
+     *
+     * @param turn: the current turn
+     * @param weights: where to put the weights
+     * @param offset: where this Player's weights start in weights
+     */
+    void weighDecision(final int turn, double[] weights, int offset){
+        if (!strategy.isBatched()){
+            computerChooseDecision(turn);
+            return;
+        }
+        reassessThreats();
+        choice.reset();
+        strategy.weigh(view, choice, weights, offset);
+    }
 
-            // ESPIONAGE DECISION PATH
-            espionageWeight += turnsSinceLastEspionage * BASE_WEIGHT;
-
-            // SABOTAGE DECISION PATH
-            currSabotageValue = o.threatLevel;
-            sabotageWeight += currSabotageValue;
-            if (currSabotageValue > maxSabotageValue){
-                maxSabotageValue = currSabotageValue;
-                if (sabotageTargetOne == null){
-                    sabotageTargetOne = o;
-                }else if (sabotageTargetTwo == null){
-                    sabotageTargetTwo = o;
-                }else{
-                    if (sabotageTargetOne.threatLevel < sabotageTargetTwo.threatLevel){
-                        sabotageTargetOne = o;
-                    }else{
-                        sabotageTargetTwo = o;
-                    }
-                }
-            }
+    /**
+     * The second half of computerChooseDecision() for a batched Strategy:
+     * has the Strategy draw its decisions, and makes them this Player's.
+     *
+     * @param turn: the current turn
+     * @param weights: the weights from weighDecision()
+     * @param offset: where this Player's weights start in weights
+     */
+    void drawDecision(final int turn, double[] weights, int offset){
+        if (!strategy.isBatched()){
+            return;
+        }
+        // the event only times the draw; the weighing is part of the phase
+        FlightEvents.ComputerDecision event = new FlightEvents.ComputerDecision();
+        event.begin();
+        strategy.draw(view, choice, weights, offset);
+        applyChoice(choice, turn);
+        event.commit(state, seat);
+    }
+
+    /**
+     * Has the computer make the given move instead of asking its Strategy,
+     * to try the move out in a copy of the game. The threats are left as
+     * they are: the move was chosen after computerChooseDecision() had
+     * already reassessed them, and reassessing them again would count the
+     * same research gaps twice.
+     *
+     * @param move: the decisions and targets
+     * @param turn: the current turn
+     */
+    void forceDecision(Choice move, int turn){
+        applyChoice(move, turn);
+    }
 
-            // NUCLEAR DECISION PATH
-            // Computers are more likely to attack targets that are perceived
-            // to be ahead, rather than behind, and will not nuke targets that
-            // are too far apart from it in research (in either way)
-            if (turn >= TURN_NUCLEAR_AVAILABLE){
-                perceivedResearchDifference = researchPoints - o.lastKnownResearchPoints;
-                currNuclearValue += o.threatLevel;
-                if (    perceivedResearchDifference > BASE_NUCLEAR_THREAT_THRESHHOLD ||
-                        perceivedResearchDifference < -BASE_NUCLEAR_THREAT_THRESHHOLD){
-                    currNuclearValue = 0;
-                    perceivedResearchDifference = 0;
-                }
-                nuclearWeight += currNuclearValue - perceivedResearchDifference;
-                if (currNuclearValue > maxNuclearValue){
-                    maxNuclearValue = currNuclearValue;
-                    nuclearTarget = o;
-                }
+    /** Reassesses the threat of whoever attacked this Player since its last turn. */
+    private void reassessThreats(){
+        // RE-EVALUATING OPPONENT THREAT LEVEL
+        // Being sabotaged by an opponent counts for more than being nuked
+        // by it; a nuke is only accounted for once no sabotage is pending.
+        for (int o = recentlySabotagedBy.nextSetBit(0); o >= 0; o = recentlySabotagedBy.nextSetBit(o + 1)){
+            knowledge.addThreat(seat, o, strategy.getSabotageThreat());
+        }
+        for (int o = recentlyNukedBy.nextSetBit(0); o >= 0; o = recentlyNukedBy.nextSetBit(o + 1)){
+            if (!recentlySabotagedBy.get(o)){
+                knowledge.addThreat(seat, o, strategy.getNuclearThreat());
+                recentlyNukedBy.clear(o);
             }
         }
+        recentlySabotagedBy.clear();
+        knowledge.updateThreatRow(seat, state.researchPoints[seat]);
+    }
+
+    /** Checks a computer's choice and makes it this Player's decisions. */
+    private void applyChoice(Choice choice, int turn){
+        checkChoice(choice, turn);
+
+        state.decisionOne[seat] = (byte) choice.getDecisionOne().ordinal();
+        state.decisionTwo[seat] = (byte) choice.getDecisionTwo().ordinal();
+        state.sabotageTargetOne[seat] = choice.getSabotageTargetOne();
+        state.sabotageTargetTwo[seat] = choice.getSabotageTargetTwo();
+        state.nuclearTarget[seat] = choice.getNuclearTarget();
+        GameEvents.decision(state, seat);
+        GameMetrics.decision(state, seat);
+    }
 
-        // negatives screw up the calculations
-        researchWeight = researchWeight < 0 ? 0 : researchWeight;
-        espionageWeight = espionageWeight < 0 ? 0 : espionageWeight;
-        sabotageWeight = sabotageWeight < 0 ? 0 : sabotageWeight;
-        nuclearWeight = nuclearWeight < 0 ? 0 : nuclearWeight;
-
-        Map<Model.Decision, Double> options = new HashMap<>();
-        options.put(Model.Decision.RESEARCH, researchWeight);
-        options.put(Model.Decision.ESPIONAGE, espionageWeight);
-        options.put(Model.Decision.SABOTAGE, sabotageWeight);
-        options.put(Model.Decision.NUCLEAR, nuclearWeight);
-
-        decisionOne = getWeightedRandom(options, rand);
-        if (decisionOne == Model.Decision.NUCLEAR){
-            decisionTwo = Model.Decision.NUCLEAR;
+    /** Makes sure the Strategy chose something the rules allow. */
+    private void checkChoice(Choice choice, int turn){
+        Model.Decision one = choice.getDecisionOne();
+        Model.Decision two = choice.getDecisionTwo();
+        boolean legal;
+        if (one == Model.Decision.NUCLEAR || two == Model.Decision.NUCLEAR){
+            legal = one == two && turn >= TURN_NUCLEAR_AVAILABLE && isOpponent(choice.getNuclearTarget());
         }else{
-            options.remove(Model.Decision.NUCLEAR);
-            if (sabotageTargetTwo == null){
-                options.remove(Model.Decision.SABOTAGE);
-            }
-            decisionTwo = getWeightedRandom(options, rand);
+            legal = one != null && one != Model.Decision.NONE && two != null && two != Model.Decision.NONE
+                    && (one != Model.Decision.SABOTAGE || isOpponent(choice.getSabotageTargetOne()))
+                    && (two != Model.Decision.SABOTAGE || isOpponent(choice.getSabotageTargetTwo()));
+        }
+        if (!legal){
+            throw new IllegalStateException(String.format("%s chose %s for %s on turn %d, which is not allowed.",
+                    strategy.getName(), choice, state.names[seat], turn));
         }
+    }
 
+    private boolean isOpponent(int target){
+        return target >= 0 && target < state.size && target != seat;
     }
 
     /**
-     * Algorithm to choose a weighted result. Credit to Martin L on
-     * Stackoverflow.
-     *
-     * https://stackoverflow.com/questions/6737283/weighted-randomness-in-java
+     * Sets the Strategy this Player chooses its decisions with, when it is
+     * a computer.
      *
-     * @pre: param weights contains Decisions mapped to Doubles
-     * @param weights: the map of weights and associated objects (Decisions)
-     * @param random: the random number generator object
+     * @param strategy: the Strategy, used by this Player only
      */
-    private <E> E getWeightedRandom(Map<E, Double> weights, Random random) {
-        E result = null;
-        double bestValue = Double.MAX_VALUE;
-
-        for (E element : weights.keySet()) {
-            double value = -Math.log(random.nextDouble()) / weights.get(element);
-
-            if (value < bestValue) {
-                bestValue = value;
-                result = element;
-            }
+    public void setStrategy(Strategy strategy){
+        if (strategy == null){
+            throw new IllegalArgumentException("A Player needs a Strategy.");
         }
+        this.strategy = strategy;
+    }
 
-        return result;
+    /** Returns the Strategy this Player chooses its decisions with. */
+    public Strategy getStrategy(){
+        return strategy;
     }
 
+    /** Takes over whom another Player has to respond to, see GameState.copy(). */
+    void copyFrom(Player other){
+        recentlySabotagedBy.clear();
+        recentlySabotagedBy.or(other.recentlySabotagedBy);
+        recentlyNukedBy.clear();
+        recentlyNukedBy.or(other.recentlyNukedBy);
+        recentlyNukeFailedBy.clear();
+        recentlyNukeFailedBy.or(other.recentlyNukeFailedBy);
+    }
 
     /**
-     * Simulates the passing of a turn, and changes the State of the Player
-     * based on what decisions were chosen.
+     * Simulates the passing of a turn for this Player, based on what
+     * decisions were chosen. Every Player's turn is resolved against the
+     * research points everybody had at the start of the turn, and only
+     * writes to this Player's own seat: its new research points go into the
+     * GameState's next-turn buffer, and the outcome of its attacks into its
+     * outcome bits. TurnResolver merges the attacks into their targets once
+     * every Player has passed, so Players can pass in any order, or all at
+     * once on separate threads.
      */
     public void passTurn(){
+        FlightEvents.PassTurn event = new FlightEvents.PassTurn();
+        event.begin();
+        String ID = state.names[seat];
+        Model.Decision decisionOne = state.getDecisionOne(seat);
+        Model.Decision decisionTwo = state.getDecisionTwo(seat);
+
+        state.outcomes[seat] = 0;
+        int researchPoints = state.researchPoints[seat];
+
         // passive gains
         researchPoints++;
-        turnsSinceLastEspionage++;
+        state.turnsSinceLastEspionage[seat]++;
 
         // assert that we have valid targets
         if (decisionOne == Model.Decision.SABOTAGE){
-            assert(sabotageTargetOne != null);
+            assert(state.sabotageTargetOne[seat] != GameState.NO_TARGET);
         }else if (decisionOne == Model.Decision.NUCLEAR){
-            assert(nuclearTarget != null);
+            assert(state.nuclearTarget[seat] != GameState.NO_TARGET);
         }
 
         // skip nuclear in this branch because it takes up both actions
         if (decisionTwo == Model.Decision.SABOTAGE){
-            assert(sabotageTargetTwo != null);
+            assert(state.sabotageTargetTwo[seat] != GameState.NO_TARGET);
         }
 
         // If nuclear, do this event chain
@@ -290,32 +320,28 @@ public class Player {
 
         if (    decisionOne == Model.Decision.NUCLEAR &&
                 decisionTwo == Model.Decision.NUCLEAR){
-            debugPrint(String.format("%s chose NUCLEAR: %s", this.ID, nuclearTarget.getID()));
-            System.out.print(String.format("%s's attempted nuclear strike against %s... ", this.ID, nuclearTarget.getID()));
-            if (nuclearTarget.player.nukedBy(this.ID)){
-                System.out.println("SUCCEEDED.");
-            }else{
-                System.out.println("FAILED.");
+            if (strikeLands(state.nuclearTarget[seat])){
+                state.outcomes[seat] |= GameState.NUKE_LANDED;
             }
         }else{
             // EXECUTE DECISION ONE
             switch (decisionOne){
                 case RESEARCH:
-                    debugPrint(String.format("%s chose RESEARCH ", this.ID));
-                    int i = rand.nextInt(RESEARCH_DIVISOR);
-                    if (i > 0){ researchPoints++; }
-                    else if (!computer){ System.out.println("RESEARCH FAILED!"); }
-                    else { debugPrint(String.format("%s: FAILED RESEARCH", this.ID)); }
+                    int i = random.nextInt(researchStream, RESEARCH_DIVISOR);
+                    if (i > 0){
+                        researchPoints++;
+                        state.outcomes[seat] |= GameState.RESEARCH_ONE_SUCCEEDED;
+                    }
+                    GameEvents.research(state, seat, i > 0);
                     break;
                 case ESPIONAGE:
-                    debugPrint(String.format("%s chose ESPIONAGE", this.ID));
-                    espionageLevel++;
-                    turnsSinceLastEspionage = 0;
+                    state.espionageLevel[seat]++;
+                    state.turnsSinceLastEspionage[seat] = 0;
                     break;
                 case SABOTAGE:
-                    debugPrint(String.format("%s chose SABOTAGE: %s", this.ID, sabotageTargetOne.getID()));
-                    sabotageTargetOne.player.sabotagedBy(ID);
-                    sabotageTargetOne = null;
+                    if (sabotageIsHeavy()){
+                        state.outcomes[seat] |= GameState.SABOTAGE_ONE_HEAVY;
+                    }
                     break;
                 default:
                     throw new InputMismatchException("Bad decisionOne for " + ID){};
@@ -324,21 +350,21 @@ public class Player {
             // EXECUTE DECISION TWO
             switch (decisionTwo){
                 case RESEARCH:
-                    debugPrint(String.format("%s chose RESEARCH", this.ID));
-                    int i = rand.nextInt(4);
-                    if (i > 0){ researchPoints++; }
-                    else if (!computer){ System.out.println("RESEARCH FAILED!"); }
-                    else { debugPrint(String.format("%s: FAILED RESEARCH", this.ID)); }
+                    int i = random.nextInt(researchStream, 4);
+                    if (i > 0){
+                        researchPoints++;
+                        state.outcomes[seat] |= GameState.RESEARCH_TWO_SUCCEEDED;
+                    }
+                    GameEvents.research(state, seat, i > 0);
                     break;
                 case ESPIONAGE:
-                    debugPrint(String.format("%s chose ESPIONAGE", this.ID));
-                    espionageLevel++;
-                    turnsSinceLastEspionage = 0;
+                    state.espionageLevel[seat]++;
+                    state.turnsSinceLastEspionage[seat] = 0;
                     break;
                 case SABOTAGE:
-                    debugPrint(String.format("%s chose SABOTAGE: %s", this.ID, sabotageTargetTwo.getID()));
-                    sabotageTargetTwo.player.sabotagedBy(ID);
-                    sabotageTargetTwo = null;
+                    if (sabotageIsHeavy()){
+                        state.outcomes[seat] |= GameState.SABOTAGE_TWO_HEAVY;
+                    }
                     break;
                 default:
                     throw new InputMismatchException("Bad decisionTwo for " + ID){};
@@ -348,6 +374,34 @@ public class Player {
 
         }
 
+        state.nextResearchPoints[seat] = researchPoints;
+        event.commit(state, seat);
+    }
+
+    /**
+     * Rolls the damage of one of this Player's sabotages.
+     *
+     * @return true for heavy damage (3 research points), false for light (2)
+     */
+    private boolean sabotageIsHeavy(){
+        return random.nextInt(sabotageStream, 2) != 0;
+    }
+
+    /**
+     * Rolls whether this Player's nuclear strike lands. The better the
+     * target's research compared to this Player's, the better its defense.
+     *
+     * @param targetSeat: the seat of the target
+     * @return whether or not the nuclear strike was successful
+     */
+    private boolean strikeLands(int targetSeat){
+        // sabotage can push research below zero, which would otherwise make
+        // for an invalid bound
+        int defenseChance = Math.max(0, state.researchPoints[targetSeat] + BASE_NUKE_DEFENSE);
+        int attackChance = Math.max(0, state.researchPoints[seat]);
+
+        int strikeLanded = random.nextInt(nukeStream, Math.max(1, attackChance + defenseChance));
+        return strikeLanded > defenseChance;
     }
 
     /**
@@ -355,182 +409,210 @@ public class Player {
      * dedicated to the task.
      */
     public void updateEspionage(){
-        switch (espionageLevel){
+        if (state.espionageLevel[seat] > 0){
+            GameEvents.espionage(state, seat, state.espionageLevel[seat]);
+        }
+        switch (state.espionageLevel[seat]){
             case 1:
-                for (Opponent o : opponents){
-                    int plusminus = rand.nextInt(3) - 1; //value between -1 and 1
-                    o.lastKnownResearchPoints = o.getPlayer().getResearchPoints() + plusminus;
-                }
+                // value between -1 and 1 off
+                knowledge.observeRowWithNoise(seat, state.researchPoints, random, espionageStream);
                 break;
             case 2:
-                for (Opponent o : opponents){
-                    o.lastKnownResearchPoints = o.getPlayer().getResearchPoints();
-                }
+                knowledge.observeRow(seat, state.researchPoints);
                 break;
         }
-        espionageLevel = 0;
-        for (Opponent o : opponents){
-            o.updateThreatAmount();
-        }
+        state.espionageLevel[seat] = 0;
+        knowledge.updateThreatRow(seat, state.researchPoints[seat]);
     }
 
     /**
-     * Run when the Player is sabotaged by another Player. This function is
-     * inefficient, but the number of Opponents should be kept low enough
-     * for that not to matter.
+     * Run when the Player is sabotaged by another Player, as the attacks of
+     * the turn are merged.
      *
-     * @param ID: for Opponent lookup purposes, to know who to blame
+     * @param attackerSeat: the seat of the attacker, to know who to blame
+     * @param damage: the research points lost
      */
-    private void sabotagedBy(String ID){
-        int result = rand.nextInt(2);
-        if (result == 0){
-            researchPoints -= 2;
-        }else{
-            researchPoints -= 3;
-        }
-        recentlySabotagedBy.add(opponentLookup(ID));
+    void sabotagedBy(int attackerSeat, int damage){
+        FlightEvents.Sabotaged event = new FlightEvents.Sabotaged();
+        event.begin();
+        state.nextResearchPoints[seat] -= damage;
+        GameEvents.sabotage(state, attackerSeat, seat, damage);
+        GameMetrics.sabotage(state);
+        recentlySabotagedBy.set(attackerSeat);
+        event.damage = damage;
+        event.commit(state, seat, attackerSeat);
     }
 
     /**
-     * Run when the Player is nuked by another Player.
+     * Run when the Player is nuked by another Player, as the attacks of the
+     * turn are merged. A strike that lands halves the Player's research.
      *
-     * @param ID: for Opponent lookup purposes, to know who to blame
-     * @return whether or not the nuclear strike was successful
+     * @param attackerSeat: the seat of the attacker, to know who to blame
+     * @param landed: whether or not the nuclear strike was successful
      */
-    private boolean nukedBy(String ID){
-        Opponent attacker = opponentLookup(ID);
-
-        int defenseChance = researchPoints + BASE_NUKE_DEFENSE;
-        int attackChance = attacker.player.getResearchPoints();
-
-        int strikeLanded = rand.nextInt(attackChance + defenseChance);
-        if (strikeLanded > defenseChance){
-            researchPoints /= 2;
-            recentlyNukedBy.add(attacker);
-            return true;
+    void nukedBy(int attackerSeat, boolean landed){
+        FlightEvents.Nuked event = new FlightEvents.Nuked();
+        event.begin();
+        GameMetrics.nuke(state, landed);
+        if (state.firstNukeTurn == 0){
+            state.firstNukeTurn = state.turn;
+        }
+        if (landed){
+            int before = state.nextResearchPoints[seat];
+            state.nextResearchPoints[seat] /= 2;
+            recentlyNukedBy.set(attackerSeat);
+            GameEvents.nuke(state, attackerSeat, seat, true, before - state.nextResearchPoints[seat]);
         }else{
-            recentlyNukeFailedBy.add(attacker);
+            recentlyNukeFailedBy.set(attackerSeat);
+            GameEvents.nuke(state, attackerSeat, seat, false, 0);
         }
-        return false;
+        event.landed = landed;
+        event.commit(state, seat, attackerSeat);
     }
 
-    /** Looks up an Opponent based on their name. */
+    /**
+     * Looks up an Opponent based on their name. This is a linear search,
+     * meant for resolving what a human typed in; the game itself looks
+     * Opponents up by seat.
+     */
     public Opponent opponentLookup(String ID){
-        Opponent result = null;
-        for (Opponent o : opponents){
-            if (o.player.ID.equals(ID)){
-                result = o;
-                break;
+        for (int o = 0; o < state.size; o++){
+            if (o != seat && state.names[o].equals(ID)){
+                return new Opponent(o);
             }
         }
-        return result;
+        return null;
+    }
+
+    /**
+     * Looks up an Opponent based on their seat.
+     *
+     * @return the Opponent, or null if the seat is not an opponent's
+     */
+    public Opponent opponentLookup(int seat){
+        if (seat < 0 || seat >= state.size || seat == this.seat){
+            return null;
+        }
+        return new Opponent(seat);
     }
 
     /** Returns the current level of a Player's research points. */
     public int getResearchPoints(){
-        return researchPoints;
+        return state.researchPoints[seat];
     }
 
 	/** Returns the ID of the Player. */
 	public String getID(){
-		return ID;
+		return state.names[seat];
 	}
 
+    /** Returns the seat of the Player. */
+    public int getSeat(){
+        return seat;
+    }
+
     /** Returns the pair of Decision to the Model for reporting purposes. */
     public Model.Decision[] getDecisions(){
-        Model.Decision[] decisions = {decisionOne, decisionTwo};
+        Model.Decision[] decisions = {state.getDecisionOne(seat), state.getDecisionTwo(seat)};
         return decisions;
     }
 
-    public void printOpponentsValues(){
-        System.out.println("--LAST KNOWN RESEARCH VALUES--");
-        for (Opponent o : opponents){
-            System.out.println(String.format("%s: %d", o.getID(), o.lastKnownResearchPoints));
+    /**
+     * Writes down what this Player knows of its opponents' research.
+     *
+     * @param out: the screen of the human playing this Player
+     */
+    public void printOpponentsValues(StringBuilder out){
+        out.append("--LAST KNOWN RESEARCH VALUES--\n");
+        for (int o = 0; o < state.size; o++){
+            if (o != seat){
+                out.append(state.names[o]).append(": ").append(knowledge.getLastKnown(seat, o)).append('\n');
+            }
         }
-        System.out.println();
+        out.append('\n');
     }
 
-    public void damageReport(){
+    /**
+     * Writes down who attacked this Player since it last chose its
+     * decisions.
+     *
+     * @param out: the screen of the human playing this Player
+     */
+    public void damageReport(StringBuilder out){
         if (!recentlySabotagedBy.isEmpty() || !recentlyNukedBy.isEmpty() || !recentlyNukeFailedBy.isEmpty()) {
-            System.out.println("--WARNING: RECENTLY ATTACKED!--");
-            for (Opponent o : recentlySabotagedBy){
-                System.out.println(String.format("  SABOTAGED BY: %s", o.getID()));
+            out.append("--WARNING: RECENTLY ATTACKED!--\n");
+            for (int o = recentlySabotagedBy.nextSetBit(0); o >= 0; o = recentlySabotagedBy.nextSetBit(o + 1)){
+                out.append("  SABOTAGED BY: ").append(state.names[o]).append('\n');
             }
-            for (Opponent o : recentlyNukedBy){
-                System.out.println(String.format("  NUKED BY: %s", o.getID()));
+            for (int o = recentlyNukedBy.nextSetBit(0); o >= 0; o = recentlyNukedBy.nextSetBit(o + 1)){
+                out.append("  NUKED BY: ").append(state.names[o]).append('\n');
             }
-            for (Opponent o : recentlyNukeFailedBy){
-                System.out.println(String.format("  ATTEMPTED NUCLEAR STRIKE BY: %s", o.getID()));
+            for (int o = recentlyNukeFailedBy.nextSetBit(0); o >= 0; o = recentlyNukeFailedBy.nextSetBit(o + 1)){
+                out.append("  ATTEMPTED NUCLEAR STRIKE BY: ").append(state.names[o]).append('\n');
             }
-            System.out.println();
-        }
-    }
-
-    public void debugPrint(String msg){
-        if (DEBUG){
-            System.out.println(msg);
+            out.append('\n');
         }
     }
 
+    /** Players are identified by their seat, which is unique within a game. */
     @Override
     public boolean equals(Object o){
         if (!(o instanceof Player)){
             return false;
         }
-        if (((Player)o).ID.equals(ID)){
-            return true;
-        }
+        return ((Player)o).seat == seat;
+    }
 
-        return false;
+    @Override
+    public int hashCode(){
+        return seat;
     }
 
     @Override
     public String toString(){
-        return ID;
+        return getID();
     }
 
     /** A class representing an Opponent, which is distinct from a Player only
      * insofar as the computer having to make decisions about which Players to
      * prioritize spying on, sabotaging, or launching nuclear weapons against.
+     *
+     * An Opponent is a view onto one entry of its observer's row of the
+     * KnowledgeMatrix, created when it is looked up.
      */
     public class Opponent{
 
-        private final int BASE_THREAT = 2;
-
-        private int lastKnownResearchPoints = 0;
-        private int threatLevel = BASE_THREAT;
-        private Player player;
+        private final int opponentSeat;
 
-        private Opponent(Player p){
-            this.player = p;
+        private Opponent(int opponentSeat){
+            this.opponentSeat = opponentSeat;
         }
 
-        private void updateThreatAmount(Model.Decision d){
-            switch (d){
-                case SABOTAGE:
-                    threatLevel += BASE_ADD_THREAT;
-                    break;
-                case NUCLEAR:
-                    threatLevel += BASE_ADD_EXTREME_THREAT;
-                    break;
-            }
-            threatLevel += (lastKnownResearchPoints - researchPoints);
-        }
+        public int getLastKnownResearchPoints(){ return knowledge.getLastKnown(seat, opponentSeat); }
 
-        private void updateThreatAmount(){
-            threatLevel += (lastKnownResearchPoints - researchPoints);
-        }
+        public int getThreatLevel(){ return knowledge.getThreat(seat, opponentSeat); }
 
-        //private void threatDecay(){ threatLevel = (threatLevel * 5) / 6; }
+        public String getID(){ return state.names[opponentSeat]; }
 
-        private void resetThreat(){ threatLevel = 0; }
+        public int getSeat(){ return opponentSeat; }
 
-        public String getID(){ return player.getID(); }
+        public Player getPlayer(){ return state.players[opponentSeat]; }
 
-        public Player getPlayer(){ return player; }
+        @Override
+        public boolean equals(Object o){
+            if (!(o instanceof Opponent)){
+                return false;
+            }
+            return ((Opponent)o).opponentSeat == opponentSeat && ((Opponent)o).getObserver() == Player.this;
+        }
 
         @Override
-        public String toString(){ return player.toString(); }
+        public int hashCode(){ return opponentSeat; }
+
+        @Override
+        public String toString(){ return getID(); }
+
+        private Player getObserver(){ return Player.this; }
 
     }
 
@@ -0,0 +1,186 @@
+package ArmsRace;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The distribution of a stream of non-negative whole numbers, kept in a
+ * fixed number of buckets however many values are added, in the manner of
+ * an HDR histogram. Values below 64 have a bucket each; above that, every
+ * power of two is split into 32 buckets of equal width, so a quantile is
+ * never off by more than about 1.5% of its value. Sketches are merged by
+ * adding up their buckets, which gives exactly the sketch of both streams,
+ * so every worker thread can keep its own and they are merged at the end.
+ *
+ * Buckets are only allocated up to the largest value seen, which for game
+ * lengths and research points is a few hundred bytes; no sketch ever needs
+ * more than 15 KB.
+ */
+public final class QuantileSketch {
+
+	// CONSTANTS
+
+    // every power of two is split into 2^SUB_BITS buckets
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // values below this have a bucket each
+    private static final int EXACT = SUB_BUCKETS << 1;
+    private static final int BUCKETS = bucket(Long.MAX_VALUE) + 1;
+
+	// STATE
+
+    private long[] counts = new long[EXACT];
+    private long count = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    /**
+     * Adds a value to the distribution.
+     *
+     * @param value: the value, at least 0
+     */
+    public void add(long value){
+        if (value < 0){
+            throw new IllegalArgumentException("Only values of at least 0 can be added: " + value);
+        }
+        int bucket = bucket(value);
+        if (bucket >= counts.length){
+            counts = Arrays.copyOf(counts, Math.min(BUCKETS, Math.max(bucket + 1, counts.length * 2)));
+        }
+        counts[bucket]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Folds another distribution into this one.
+     *
+     * @param other: the sketch of another stream
+     */
+    public void merge(QuantileSketch other){
+        if (other.counts.length > counts.length){
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int x = 0; x < other.counts.length; x++){
+            counts[x] += other.counts[x];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /** Returns the number of values added. */
+    public long getCount(){
+        return count;
+    }
+
+    /** Returns the average of the values, or 0 if there were none. */
+    public double getMean(){
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /** Returns the smallest value, or 0 if there were none. */
+    public long getMin(){
+        return count == 0 ? 0 : min;
+    }
+
+    /** Returns the largest value, or 0 if there were none. */
+    public long getMax(){
+        return max;
+    }
+
+    /**
+     * Returns the value that the given fraction of the values are at or
+     * below, to within the width of its bucket.
+     *
+     * @param fraction: between 0 and 1, e.g. 0.99 for the 99th percentile
+     * @return the quantile, or 0 if there were no values
+     */
+    public long getQuantile(double fraction){
+        if (!(fraction >= 0 && fraction <= 1)){
+            throw new IllegalArgumentException("The fraction must be between 0 and 1: " + fraction);
+        }
+        if (count == 0){
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int x = 0; x < counts.length; x++){
+            seen += counts[x];
+            if (seen >= rank){
+                // the middle of the bucket, but never past what was seen
+                long middle = lowest(x) + (width(x) - 1) / 2;
+                return Math.max(min, Math.min(max, middle));
+            }
+        }
+        return max;
+    }
+
+    /** Returns the bucket a value falls in. */
+    private static int bucket(long value){
+        if (value < EXACT){
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /** Returns the smallest value in a bucket. */
+    private static long lowest(int bucket){
+        if (bucket < EXACT){
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    /** Returns the number of values a bucket holds. */
+    private static long width(int bucket){
+        return bucket < EXACT ? 1 : 1L << (bucket / SUB_BUCKETS - 1);
+    }
+
+    /** Writes the sketch into a tournament checkpoint. */
+    void write(Checkpoint.Output out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(sum);
+        out.writeLong(min);
+        out.writeLong(max);
+        int used = counts.length;
+        while (used > EXACT && counts[used - 1] == 0){
+            used--;
+        }
+        out.writeInt(used);
+        for (int x = 0; x < used; x++){
+            out.writeLong(counts[x]);
+        }
+    }
+
+    /** Reads a sketch written by write(). */
+    static QuantileSketch read(Checkpoint.Input in) throws IOException {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.count = in.readLong();
+        sketch.sum = in.readLong();
+        sketch.min = in.readLong();
+        sketch.max = in.readLong();
+        int used = in.readInt();
+        if (used < EXACT || used > BUCKETS){
+            throw new IllegalArgumentException("Not a sketch of " + used + " buckets.");
+        }
+        sketch.counts = new long[used];
+        for (int x = 0; x < used; x++){
+            sketch.counts[x] = in.readLong();
+        }
+        return sketch;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("avg %.2f min %d p50 %d p90 %d p99 %d max %d",
+                getMean(), getMin(), getQuantile(0.5), getQuantile(0.9), getQuantile(0.99), max);
+    }
+
+}
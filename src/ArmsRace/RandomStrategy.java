@@ -0,0 +1,40 @@
+package ArmsRace;
+
+/**
+ * A baseline opponent that picks uniformly among the decisions open to it,
+ * and targets a random opponent. Useful as the weakest, cheapest bot to
+ * rate other Strategies against.
+ */
+public class RandomStrategy implements Strategy {
+
+	// CONSTANTS
+
+    private static final Model.Decision[] DECISIONS = Model.Decision.values();
+
+    @Override
+    public void choose(GameView view, Choice choice){
+        int options = view.isNuclearAvailable() ? 4 : 3;
+        Model.Decision one = DECISIONS[(int) (view.nextRandom() * options)];
+        if (one == Model.Decision.NUCLEAR){
+            choice.setDecisions(one, one);
+            choice.setNuclearTarget(randomOpponent(view));
+            return;
+        }
+        Model.Decision two = DECISIONS[(int) (view.nextRandom() * 3)];
+        choice.setDecisions(one, two);
+        choice.setSabotageTargets(
+                one == Model.Decision.SABOTAGE ? randomOpponent(view) : GameState.NO_TARGET,
+                two == Model.Decision.SABOTAGE ? randomOpponent(view) : GameState.NO_TARGET);
+    }
+
+    private static int randomOpponent(GameView view){
+        int o = (int) (view.nextRandom() * (view.size() - 1));
+        return o >= view.getSeat() ? o + 1 : o;
+    }
+
+    @Override
+    public String getName(){
+        return "random";
+    }
+
+}
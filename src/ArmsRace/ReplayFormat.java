@@ -0,0 +1,131 @@
+package ArmsRace;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The layout of a replay file, and the variable-length integer encoding it
+ * is written in.
+ *
+ * A file starts with MAGIC and VERSION, followed by any number of games.
+ * Each game is prefixed with its length in bytes, so that readers can skip
+ * it or map it without decoding it, and consists of:
+ *
+ *      seed                8 bytes
+ *      maxTurns            varint
+ *      players             varint, then per seat: name length varint, UTF-8
+ *      turns               varint
+ *      winners             varint, then per winner: seat varint
+ *      turn records        one per turn, see below
+ *
+ * A turn record holds, for every seat in order, the two decisions packed
+ * into one byte (first << 4 | second), the outcome bits from the GameState,
+ * the target seat of each decision that needs one, and the change in the
+ * seat's research points since the previous turn, zigzag encoded. Most of
+ * these fit in a byte each.
+ *
+ * A replay is checked by playing its seed again, so VERSION changes not
+ * only with the layout but with every change to how a seed plays out: a
+ * new random stream, a new order of draws or a new rule. Version 2 covers
+ * the per-purpose random streams, the frozen turn snapshot and the single
+ * uniform draw per decision; version 3 the random order in which the
+ * heuristic looks over its opponents; version 4 the drawn order of tied
+ * winners.
+ */
+final class ReplayFormat {
+
+	// CONSTANTS
+
+    static final int MAGIC = 0x41525250; // "ARRP"
+    static final byte VERSION = 4;
+
+    private static final int SABOTAGE = Model.Decision.SABOTAGE.ordinal();
+    private static final int NUCLEAR = Model.Decision.NUCLEAR.ordinal();
+
+    private ReplayFormat(){}
+
+    /** Returns whether a seat with these decisions recorded a first target. */
+    static boolean hasTargetOne(int decisionOne, int decisionTwo){
+        return decisionOne == SABOTAGE || (decisionOne == NUCLEAR && decisionTwo == NUCLEAR);
+    }
+
+    /** Returns whether a seat with these decisions recorded a second target. */
+    static boolean hasTargetTwo(int decisionOne, int decisionTwo){
+        return decisionTwo == SABOTAGE && decisionOne != NUCLEAR;
+    }
+
+    static int zigzag(int value){
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value){
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /** Reads an unsigned varint written by Buffer.writeVarint(). */
+    static int readVarint(ByteBuffer in){
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7){
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0){
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint in replay.");
+    }
+
+    /** A growable byte array that games are encoded into. */
+    static final class Buffer {
+
+        private byte[] bytes = new byte[256];
+        private int length = 0;
+
+        void clear(){
+            length = 0;
+        }
+
+        int length(){
+            return length;
+        }
+
+        byte[] array(){
+            return bytes;
+        }
+
+        private void ensure(int extra){
+            if (length + extra > bytes.length){
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        void writeByte(int b){
+            ensure(1);
+            bytes[length++] = (byte) b;
+        }
+
+        void writeBytes(byte[] b, int offset, int count){
+            ensure(count);
+            System.arraycopy(b, offset, bytes, length, count);
+            length += count;
+        }
+
+        void writeLong(long value){
+            ensure(Long.BYTES);
+            for (int shift = 56; shift >= 0; shift -= 8){
+                bytes[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        /** Writes a non-negative int in 7-bit groups, low group first. */
+        void writeVarint(int value){
+            ensure(5);
+            while ((value & ~0x7F) != 0){
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+    }
+
+}
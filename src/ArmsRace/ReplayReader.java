@@ -0,0 +1,255 @@
+package ArmsRace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a replay file written by ReplayWriter. The file is memory-mapped a
+ * window at a time, so archives larger than a single buffer can be read, and
+ * games are decoded straight out of the mapping.
+ *
+ * Games are visited in the order they were written with nextGame(). The
+ * turns of the current game can then be walked with nextTurn(), or the whole
+ * game can be played again with replay(), which runs a fresh Simulation from
+ * the recorded seed and roster and checks every turn against the recording.
+ */
+public class ReplayReader implements Closeable {
+
+	// CONSTANTS
+
+    // the size of the part of the file that is mapped at once
+    private static final int WINDOW_SIZE = 1 << 30;
+
+	// STATE
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    // where the next game starts in the file
+    private long nextGameOffset;
+
+    // the current game
+    private ByteBuffer game;
+    private long seed;
+    private int maxTurns;
+    private List<String> names;
+    private int turns;
+    private int[] winnerSeats;
+    private int turnsRead;
+    private int[] researchPoints = new int[0];
+
+    /**
+     * Constructor. Opens and checks the file; call nextGame() to get to the
+     * first game.
+     *
+     * @param file: a file written by ReplayWriter
+     */
+    public ReplayReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        fileSize = channel.size();
+        if (fileSize < Integer.BYTES + 1){
+            channel.close();
+            throw new IllegalArgumentException(file + " is not a replay file.");
+        }
+        map(0, Integer.BYTES + 1);
+        if (window.getInt(0) != ReplayFormat.MAGIC){
+            channel.close();
+            throw new IllegalArgumentException(file + " is not a replay file.");
+        }
+        if (window.get(Integer.BYTES) != ReplayFormat.VERSION){
+            channel.close();
+            throw new IllegalArgumentException(file + " is a replay file of version " + window.get(Integer.BYTES)
+                    + ", which this version of the game plays differently; expected version "
+                    + ReplayFormat.VERSION + ".");
+        }
+        nextGameOffset = Integer.BYTES + 1;
+    }
+
+    /** Makes sure the given range of the file is mapped. */
+    private void map(long offset, long length) throws IOException {
+        if (window != null && offset >= windowStart
+                && offset + length <= windowStart + window.capacity()){
+            return;
+        }
+        if (length > Integer.MAX_VALUE){
+            throw new IllegalStateException("Replayed game is too large to map.");
+        }
+        long size = Math.min(fileSize - offset, Math.max(length, WINDOW_SIZE));
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        windowStart = offset;
+    }
+
+    /**
+     * Moves on to the next game in the file, skipping whatever is left of
+     * the current one.
+     *
+     * @return false if there are no more games
+     */
+    public boolean nextGame() throws IOException {
+        if (nextGameOffset >= fileSize){
+            game = null;
+            return false;
+        }
+        map(nextGameOffset, Math.min(5, fileSize - nextGameOffset));
+        ByteBuffer prefix = window.duplicate();
+        prefix.position((int) (nextGameOffset - windowStart));
+        int length = ReplayFormat.readVarint(prefix);
+        long bodyOffset = nextGameOffset + (prefix.position() - (nextGameOffset - windowStart));
+        if (bodyOffset + length > fileSize){
+            throw new IllegalStateException("Replay file ends in the middle of a game.");
+        }
+        map(nextGameOffset, bodyOffset + length - nextGameOffset);
+
+        game = window.duplicate();
+        game.position((int) (bodyOffset - windowStart));
+        game.limit(game.position() + length);
+        nextGameOffset = bodyOffset + length;
+
+        seed = game.getLong();
+        maxTurns = ReplayFormat.readVarint(game);
+        int size = ReplayFormat.readVarint(game);
+        ArrayList<String> names = new ArrayList<>(size);
+        for (int x = 0; x < size; x++){
+            byte[] utf8 = new byte[ReplayFormat.readVarint(game)];
+            game.get(utf8);
+            names.add(new String(utf8, StandardCharsets.UTF_8));
+        }
+        this.names = Collections.unmodifiableList(names);
+        turns = ReplayFormat.readVarint(game);
+        winnerSeats = new int[ReplayFormat.readVarint(game)];
+        for (int x = 0; x < winnerSeats.length; x++){
+            winnerSeats[x] = ReplayFormat.readVarint(game);
+        }
+        turnsRead = 0;
+        researchPoints = new int[size];
+        return true;
+    }
+
+    /**
+     * Decodes the next turn of the current game.
+     *
+     * @param turn: where the turn is decoded into
+     * @return false if every turn of the game has been read
+     */
+    public boolean nextTurn(ReplayTurn turn){
+        if (game == null){
+            throw new IllegalStateException("No current game; call nextGame() first.");
+        }
+        if (turnsRead == turns){
+            return false;
+        }
+        int size = names.size();
+        turn.resize(size);
+        turn.turn = ++turnsRead;
+        for (int seat = 0; seat < size; seat++){
+            int packed = game.get() & 0xFF;
+            int one = packed >>> 4;
+            int two = packed & 0x0F;
+            turn.decisionOne[seat] = (byte) one;
+            turn.decisionTwo[seat] = (byte) two;
+            turn.outcomes[seat] = game.get();
+            turn.targetOne[seat] = ReplayFormat.hasTargetOne(one, two)
+                    ? ReplayFormat.readVarint(game) : GameState.NO_TARGET;
+            turn.targetTwo[seat] = ReplayFormat.hasTargetTwo(one, two)
+                    ? ReplayFormat.readVarint(game) : GameState.NO_TARGET;
+            researchPoints[seat] += ReplayFormat.unzigzag(ReplayFormat.readVarint(game));
+            turn.researchPoints[seat] = researchPoints[seat];
+        }
+        return true;
+    }
+
+    /**
+     * Plays the current game again from its seed, without the console, and
+     * checks every turn against the recording. Reading the turns with
+     * nextTurn() and replaying cannot be mixed within one game.
+     *
+     * @return the outcome of the replayed game
+     * @throws IllegalStateException if the game did not play out as recorded
+     */
+    public SimulationResult replay(){
+        if (game == null){
+            throw new IllegalStateException("No current game; call nextGame() first.");
+        }
+        Simulation sim = new Simulation(names, seed);
+        sim.setMaxTurns(maxTurns);
+        GameState state = sim.getState();
+        ReplayTurn turn = new ReplayTurn();
+        while (nextTurn(turn)){
+            sim.playTurn();
+            turn.verify(state);
+        }
+        SimulationResult result = sim.result();
+        if (result.getTurns() != turns || !Arrays.equals(result.getWinnerSeats(), winnerSeats)){
+            throw new IllegalStateException("Replay diverged: the game ended differently.");
+        }
+        return result;
+    }
+
+    /** Returns the seed the current game was created with. */
+    public long getSeed(){
+        return seed;
+    }
+
+    /** Returns the turn limit of the current game. */
+    public int getMaxTurns(){
+        return maxTurns;
+    }
+
+    /** Returns the names of the Players of the current game, in seating order. */
+    public List<String> getNames(){
+        return names;
+    }
+
+    /** Returns the number of turns the current game lasted. */
+    public int getTurns(){
+        return turns;
+    }
+
+    /** Returns the seats of the winners of the current game. */
+    public int[] getWinnerSeats(){
+        return winnerSeats.clone();
+    }
+
+    @Override
+    public void close() throws IOException {
+        game = null;
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * Replays and verifies every game of a replay file.
+     *
+     * @param args: [file]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1){
+            System.out.println("Usage: ReplayReader <file>");
+            return;
+        }
+        long games = 0;
+        long start = System.nanoTime();
+        try (ReplayReader reader = new ReplayReader(Paths.get(args[0]))){
+            while (reader.nextGame()){
+                reader.replay();
+                games++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("Replayed and verified %d games (%.0f games/s).", games, games / seconds));
+    }
+
+}
@@ -0,0 +1,98 @@
+package ArmsRace;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes a single game in the replay format while it is being played. The
+ * turns are buffered in memory until the game ends, at which point the whole
+ * game is handed to a ReplayWriter in one piece, so that games played on
+ * different threads never interleave in the file.
+ *
+ * A recorder can be reused for any number of games, one after the other.
+ */
+final class ReplayRecorder {
+
+	// STATE
+
+    private final ReplayFormat.Buffer header = new ReplayFormat.Buffer();
+    private final ReplayFormat.Buffer turns = new ReplayFormat.Buffer();
+    private final ReplayFormat.Buffer game = new ReplayFormat.Buffer();
+
+    // research points as of the previous recorded turn, by seat
+    private int[] lastResearchPoints = new int[0];
+    private int numTurns = 0;
+
+    /**
+     * Starts recording a new game, discarding anything recorded before.
+     *
+     * @param seed: the seed the game was created with
+     * @param maxTurns: the game's turn limit
+     * @param state: the State of the game, before its first turn
+     */
+    void begin(long seed, int maxTurns, GameState state){
+        header.clear();
+        turns.clear();
+        game.clear();
+        numTurns = 0;
+
+        header.writeLong(seed);
+        header.writeVarint(maxTurns);
+        header.writeVarint(state.size);
+        for (String name : state.names){
+            byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+            header.writeVarint(utf8.length);
+            header.writeBytes(utf8, 0, utf8.length);
+        }
+        lastResearchPoints = state.researchPoints.clone();
+    }
+
+    /**
+     * Records the turn that was just played: every seat's decisions,
+     * targets, outcomes and change in research points.
+     *
+     * @param state: the State of the game, after the turn was played
+     */
+    void recordTurn(GameState state){
+        for (int seat = 0; seat < state.size; seat++){
+            int one = state.decisionOne[seat];
+            int two = state.decisionTwo[seat];
+            turns.writeByte(one << 4 | two);
+            turns.writeByte(state.outcomes[seat]);
+            if (ReplayFormat.hasTargetOne(one, two)){
+                turns.writeVarint(one == Model.Decision.NUCLEAR.ordinal()
+                        ? state.nuclearTarget[seat] : state.sabotageTargetOne[seat]);
+            }
+            if (ReplayFormat.hasTargetTwo(one, two)){
+                turns.writeVarint(state.sabotageTargetTwo[seat]);
+            }
+            int points = state.researchPoints[seat];
+            turns.writeVarint(ReplayFormat.zigzag(points - lastResearchPoints[seat]));
+            lastResearchPoints[seat] = points;
+        }
+        numTurns++;
+    }
+
+    /**
+     * Finishes the game and assembles it, length prefix included, ready to
+     * be written out.
+     *
+     * @param result: the outcome of the game
+     * @return the encoded game, valid until the next call to begin()
+     */
+    ReplayFormat.Buffer finish(SimulationResult result){
+        ReplayFormat.Buffer tail = new ReplayFormat.Buffer();
+        tail.writeVarint(numTurns);
+        int[] winners = result.getWinnerSeats();
+        tail.writeVarint(winners.length);
+        for (int seat : winners){
+            tail.writeVarint(seat);
+        }
+
+        game.writeVarint(header.length() + tail.length() + turns.length());
+        game.writeBytes(header.array(), 0, header.length());
+        game.writeBytes(tail.array(), 0, tail.length());
+        game.writeBytes(turns.array(), 0, turns.length());
+        return game;
+    }
+
+}
@@ -0,0 +1,113 @@
+package ArmsRace;
+
+/**
+ * One turn of a recorded game, as decoded by ReplayReader.nextTurn(). The
+ * arrays are indexed by seat and reused from turn to turn, so a single
+ * ReplayTurn can walk through a whole archive without allocating.
+ */
+public class ReplayTurn {
+
+    private static final Model.Decision[] DECISIONS = Model.Decision.values();
+
+	// STATE
+
+    int turn;
+    int size;
+    byte[] decisionOne = new byte[0];
+    byte[] decisionTwo = new byte[0];
+    byte[] outcomes = new byte[0];
+    int[] targetOne = new int[0];
+    int[] targetTwo = new int[0];
+    int[] researchPoints = new int[0];
+
+    /** Makes room for the given number of seats, keeping research points. */
+    void resize(int size){
+        this.size = size;
+        if (decisionOne.length < size){
+            decisionOne = new byte[size];
+            decisionTwo = new byte[size];
+            outcomes = new byte[size];
+            targetOne = new int[size];
+            targetTwo = new int[size];
+            researchPoints = new int[size];
+        }
+    }
+
+    /** Returns the number of the turn, starting at 1. */
+    public int getTurn(){
+        return turn;
+    }
+
+    /** Returns the number of seats in the game. */
+    public int size(){
+        return size;
+    }
+
+    /** Returns the first decision of the given seat. */
+    public Model.Decision getDecisionOne(int seat){
+        return DECISIONS[decisionOne[seat]];
+    }
+
+    /** Returns the second decision of the given seat. */
+    public Model.Decision getDecisionTwo(int seat){
+        return DECISIONS[decisionTwo[seat]];
+    }
+
+    /**
+     * Returns the target of the first decision, which for a nuclear strike
+     * is the target of the strike, or GameState.NO_TARGET.
+     */
+    public int getTargetOne(int seat){
+        return targetOne[seat];
+    }
+
+    /** Returns the target of the second decision, or GameState.NO_TARGET. */
+    public int getTargetTwo(int seat){
+        return targetTwo[seat];
+    }
+
+    /** Returns whether the given outcome bit (see GameState) was set. */
+    boolean hasOutcome(int seat, byte outcome){
+        return (outcomes[seat] & outcome) != 0;
+    }
+
+    /** Returns the research points of the seat at the end of the turn. */
+    public int getResearchPoints(int seat){
+        return researchPoints[seat];
+    }
+
+    /**
+     * Checks that a game being replayed played this turn exactly as it was
+     * recorded.
+     *
+     * @param state: the State of the replayed game, after the turn
+     * @throws IllegalStateException if the game took a different course
+     */
+    void verify(GameState state){
+        if (state.turn != turn || state.size != size){
+            throw new IllegalStateException(String.format(
+                    "Replay diverged: expected turn %d of %d seats, was turn %d of %d.",
+                    turn, size, state.turn, state.size));
+        }
+        for (int seat = 0; seat < size; seat++){
+            int one = decisionOne[seat];
+            int two = decisionTwo[seat];
+            boolean same = state.decisionOne[seat] == one
+                    && state.decisionTwo[seat] == two
+                    && state.outcomes[seat] == outcomes[seat]
+                    && state.researchPoints[seat] == researchPoints[seat];
+            if (same && ReplayFormat.hasTargetOne(one, two)){
+                same = targetOne[seat] == (one == Model.Decision.NUCLEAR.ordinal()
+                        ? state.nuclearTarget[seat] : state.sabotageTargetOne[seat]);
+            }
+            if (same && ReplayFormat.hasTargetTwo(one, two)){
+                same = targetTwo[seat] == state.sabotageTargetTwo[seat];
+            }
+            if (!same){
+                throw new IllegalStateException(String.format(
+                        "Replay diverged on turn %d at %s.", turn, state.names[seat]));
+            }
+        }
+    }
+
+}
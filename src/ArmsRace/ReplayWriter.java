@@ -0,0 +1,114 @@
+package ArmsRace;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends recorded games to a replay file. One writer can be shared by every
+ * Simulation of a Tournament: each game is buffered by its own recorder and
+ * written here in a single synchronized call.
+ *
+ * A resumed Tournament reopens its file with resume(), which cuts off
+ * whatever was written after its last checkpoint and carries on from there.
+ */
+public class ReplayWriter implements Closeable {
+
+	// CONSTANTS
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int HEADER_SIZE = Integer.BYTES + 1;
+
+	// STATE
+
+    private final DataOutputStream out;
+    private long games = 0;
+    private long length;
+
+    /**
+     * Constructor. Creates the file, or truncates it if it exists.
+     *
+     * @param file: where the replays are written
+     */
+    public ReplayWriter(Path file) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+        out.writeInt(ReplayFormat.MAGIC);
+        out.writeByte(ReplayFormat.VERSION);
+        length = HEADER_SIZE;
+    }
+
+    private ReplayWriter(FileChannel channel, long length){
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        this.length = length;
+    }
+
+    /**
+     * Reopens a replay file to append to, dropping everything after the
+     * given length.
+     *
+     * @param file: a replay file of the current version
+     * @param length: the length of the file to keep, see getLength()
+     */
+    public static ReplayWriter resume(Path file, long length) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()){
+                if (channel.read(header) < 0){
+                    break;
+                }
+            }
+            if (length < HEADER_SIZE || channel.size() < length || header.hasRemaining()
+                    || header.getInt(0) != ReplayFormat.MAGIC || header.get(Integer.BYTES) != ReplayFormat.VERSION){
+                throw new IllegalArgumentException(file + " is not a replay file of version "
+                        + ReplayFormat.VERSION + " at least " + length + " bytes long.");
+            }
+            channel.truncate(length);
+            channel.position(length);
+            return new ReplayWriter(channel, length);
+        } catch (IOException | RuntimeException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Writes a finished game, as assembled by ReplayRecorder.finish(). */
+    synchronized void write(ReplayFormat.Buffer game){
+        try {
+            out.write(game.array(), 0, game.length());
+            games++;
+            length += game.length();
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Returns the number of games written since the file was opened. */
+    public synchronized long getGames(){
+        return games;
+    }
+
+    /** Returns the length of the file, once flushed. */
+    public synchronized long getLength(){
+        return length;
+    }
+
+    /** Writes out every game written so far. */
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+}
@@ -0,0 +1,220 @@
+package ArmsRace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A headless game between computer Players only. Runs the same turn loop as
+ * Model.runGame(), but never reads from or writes to the console, so that
+ * many games can be played back to back to evaluate game balance.
+ *
+ * All state, including the random number generators, belongs to the
+ * Simulation itself, so separate Simulations can run on separate threads.
+ *
+ * A Simulation given a ReplayWriter records itself as it plays; since the
+ * whole game follows from its seed and roster, ReplayReader can then play it
+ * again turn by turn and check that it takes the same course. Replays
+ * assume every Player uses the default HeuristicStrategy, so games with
+ * other Strategies are not recorded.
+ */
+public class Simulation {
+
+	// CONSTANTS
+
+    public static final int DEFAULT_MAX_TURNS = 1000;
+    private static final int MIN_PLAYERS = 2;
+
+	// STATE
+
+    private final long seed;
+    private GameState state;
+    private ArrayList<Player> players = new ArrayList<>();
+    // refilled by every win check; SimulationResult copies what it needs
+    private final ArrayList<Player> winners = new ArrayList<>();
+    private int maxTurns = DEFAULT_MAX_TURNS;
+
+    private ReplayWriter replayWriter;
+    private ReplayRecorder recorder;
+    private boolean customStrategies = false;
+    private SpectatorServer.Feed spectator;
+
+    /**
+     * Constructor. Creates one computer Player per name and initializes the
+     * opponent lists, exactly as the Model does for an interactive game.
+     *
+     * @param names: the names of the countries taking part in the game
+     * @param seed: the seed all randomness in the game is derived from
+     */
+    public Simulation(List<String> names, long seed){
+        if (names.size() < MIN_PLAYERS){
+            throw new IllegalArgumentException(
+                    String.format("A simulation needs at least %d players.", MIN_PLAYERS));
+        }
+        this.seed = seed;
+        state = new GameState(names, new boolean[names.size()], seed);
+        Arrays.fill(state.computer, true);
+        for (int seat = 0; seat < state.size(); seat++){
+            players.add(new Player(state, seat));
+        }
+    }
+
+    /**
+     * Sets the number of turns after which the game is abandoned without a
+     * winner. Guards against games that never converge.
+     *
+     * @param maxTurns: the turn limit, at least 1
+     */
+    public void setMaxTurns(int maxTurns){
+        if (maxTurns < 1){
+            throw new IllegalArgumentException("maxTurns must be at least 1.");
+        }
+        this.maxTurns = maxTurns;
+    }
+
+    /** Returns the number of turns after which the game is abandoned. */
+    public int getMaxTurns(){
+        return maxTurns;
+    }
+
+    /**
+     * Sets the Strategy of the Player in the given seat. Strategies are not
+     * part of a Checkpoint, and have to be set again on a restored game.
+     *
+     * @param seat: the seat of the Player
+     * @param strategy: the Strategy, used by this Player only
+     */
+    public void setStrategy(int seat, Strategy strategy){
+        players.get(seat).setStrategy(strategy);
+        customStrategies = true;
+    }
+
+    /**
+     * Lets spectators watch the game as it is run, see SpectatorServer.
+     *
+     * @param server: the server to publish every turn to, or null
+     * @param label: what to call the game on the spectators' page
+     */
+    public void setSpectator(SpectatorServer server, String label){
+        spectator = server == null ? null : server.feed(label, state);
+    }
+
+    /**
+     * Records the game into the given replay file when it is run. Games
+     * restored from a Checkpoint part way through are not recorded.
+     *
+     * @param replayWriter: the file to record into, or null to not record
+     */
+    public void setReplayWriter(ReplayWriter replayWriter){
+        this.replayWriter = replayWriter;
+        if (replayWriter != null && recorder == null){
+            recorder = new ReplayRecorder();
+        }
+    }
+
+    /**
+     * Plays the game to completion. Each turn, every Player chooses its
+     * decisions, then every Player passes its turn, then every Player
+     * updates its espionage values. The game ends as soon as at least one
+     * Player has reached the research target.
+     *
+     * @return the outcome of the game
+     */
+    public SimulationResult run(){
+        try {
+            return play();
+        } finally {
+            // takes the game off the spectators' page if it failed
+            if (spectator != null){
+                spectator.close();
+            }
+        }
+    }
+
+    private SimulationResult play(){
+        boolean recording = replayWriter != null && state.turn == 0 && !customStrategies;
+        if (recording){
+            recorder.begin(seed, maxTurns, state);
+        }
+
+        ArrayList<Player> winners = checkWinners();
+
+        while (winners.isEmpty() && state.turn < maxTurns){
+            playTurn();
+            if (recording){
+                recorder.recordTurn(state);
+            }
+            if (spectator != null){
+                spectator.publish();
+            }
+            winners = checkWinners();
+        }
+
+        SimulationResult result = new SimulationResult(players, winners, state.turn, state.firstNukeTurn);
+        if (spectator != null){
+            spectator.finish(result.getWinnerSeats());
+        }
+        if (recording){
+            replayWriter.write(recorder.finish(result));
+        }
+        return result;
+    }
+
+    /** Returns the outcome of the game as it stands. */
+    SimulationResult result(){
+        return new SimulationResult(players, findWinners(), state.turn, state.firstNukeTurn);
+    }
+
+    /** Plays a single turn, without checking whether anybody has won. */
+    void playTurn(){
+        int turn = ++state.turn;
+        TurnResolver.chooseComputerDecisions(state, turn);
+        TurnResolver.resolve(state);
+        TurnResolver.updateEspionage(state);
+        GameEvents.turnSummary(state);
+    }
+
+    /** Returns the number of turns played so far. */
+    int getTurn(){
+        return state.turn;
+    }
+
+    /** Returns the State of the game. */
+    GameState getState(){
+        return state;
+    }
+
+    /** Returns the Players, in seating order. */
+    List<Player> getPlayers(){
+        return players;
+    }
+
+    /** Returns findWinners(), timed as the win check of the turn. */
+    private ArrayList<Player> checkWinners(){
+        long start = GameMetrics.begin(state);
+        FlightEvents.Phase event = new FlightEvents.Phase();
+        event.begin();
+        ArrayList<Player> winners = findWinners();
+        GameMetrics.end(GameMetrics.Phase.WIN_CHECK, start);
+        event.commit(state, GameMetrics.Phase.WIN_CHECK);
+        return winners;
+    }
+
+    /**
+     * Returns the Players that have reached the research target with the
+     * highest score, the winner of the tie first, or an empty list if
+     * nobody has reached it yet.
+     */
+    private ArrayList<Player> findWinners(){
+        winners.clear();
+        if (state.getMaxResearchPoints() < Model.RESEARCH_TARGET){
+            return winners;
+        }
+        int count = state.leaderboard.countLeaders();
+        for (int rank = 0; rank < count; rank++){
+            winners.add(players.get(state.leaderboard.getLeader(rank)));
+        }
+        return winners;
+    }
+
+}
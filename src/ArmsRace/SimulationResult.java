@@ -0,0 +1,132 @@
+package ArmsRace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a single headless Simulation: who won, how many turns the
+ * game lasted, when the first nuke was launched, and how many research
+ * points every Player finished with.
+ */
+public class SimulationResult {
+
+    private final List<String> names;
+    private final int[] researchPoints;
+    private final String[] strategies;
+    private final List<String> winners;
+    private final int[] winnerSeats;
+    private final int turns;
+    private final int firstNukeTurn;
+
+    /**
+     * Constructor. Copies everything it needs out of the Players, so the
+     * result stays valid once the game is discarded.
+     *
+     * @param players: every Player in the game, in seating order
+     * @param winners: the Players with the best score at or above the
+     *      research target, empty if the game hit its turn limit
+     * @param turns: the number of turns that were played
+     * @param firstNukeTurn: the turn the first nuke was launched on, or 0
+     */
+    SimulationResult(List<Player> players, List<Player> winners, int turns, int firstNukeTurn){
+        ArrayList<String> names = new ArrayList<>(players.size());
+        this.researchPoints = new int[players.size()];
+        this.strategies = new String[players.size()];
+        for (int x = 0; x < players.size(); x++){
+            names.add(players.get(x).getID());
+            researchPoints[x] = players.get(x).getResearchPoints();
+            strategies[x] = players.get(x).getStrategy().getName();
+        }
+        ArrayList<String> winnerNames = new ArrayList<>(winners.size());
+        this.winnerSeats = new int[winners.size()];
+        for (int x = 0; x < winners.size(); x++){
+            winnerNames.add(winners.get(x).getID());
+            winnerSeats[x] = winners.get(x).getSeat();
+        }
+        this.names = Collections.unmodifiableList(names);
+        this.winners = Collections.unmodifiableList(winnerNames);
+        this.turns = turns;
+        this.firstNukeTurn = firstNukeTurn;
+    }
+
+    /** Returns the winner of the game, or null if nobody won. */
+    public String getWinner(){
+        return winners.isEmpty() ? null : winners.get(0);
+    }
+
+    /** Returns every Player that finished tied for first place. */
+    public List<String> getWinners(){
+        return winners;
+    }
+
+    /** Returns the seat of the winner, or -1 if nobody won. */
+    public int getWinnerSeat(){
+        return winnerSeats.length == 0 ? -1 : winnerSeats[0];
+    }
+
+    /** Returns the seats of every Player that finished tied for first place. */
+    public int[] getWinnerSeats(){
+        return winnerSeats.clone();
+    }
+
+    /** Returns whether more than one Player finished in first place. */
+    public boolean isTie(){
+        return winners.size() > 1;
+    }
+
+    /** Returns the number of turns that were played. */
+    public int getTurns(){
+        return turns;
+    }
+
+    /** Returns the turn the first nuke was launched on, or 0 if none was. */
+    public int getFirstNukeTurn(){
+        return firstNukeTurn;
+    }
+
+    /** Returns the names of the Players, in seating order. */
+    public List<String> getNames(){
+        return names;
+    }
+
+    /** Returns the number of Players that took part in the game. */
+    public int getNumPlayers(){
+        return researchPoints.length;
+    }
+
+    /** Returns the final research points of the Player in the given seat. */
+    public int getResearchPoints(int seat){
+        return researchPoints[seat];
+    }
+
+    /** Returns the name of the Strategy of the Player in the given seat. */
+    public String getStrategy(int seat){
+        return strategies[seat];
+    }
+
+    /**
+     * Returns the difference between the highest and the lowest final
+     * research points.
+     */
+    public int getResearchSpread(){
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int points : researchPoints){
+            min = Math.min(min, points);
+            max = Math.max(max, points);
+        }
+        return researchPoints.length == 0 ? 0 : max - min;
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Winner: %s after %d turns", getWinner(), turns));
+        for (int x = 0; x < names.size(); x++){
+            sb.append(String.format("%n%s : %d", names.get(x), researchPoints[x]));
+        }
+        return sb.toString();
+    }
+
+}
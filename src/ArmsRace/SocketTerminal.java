@@ -0,0 +1,139 @@
+package ArmsRace;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The terminal of a human connected to the GameServer. Output is buffered
+ * and sent whenever the human is asked for input. Input is read with a
+ * socket timeout taken from the deadline, so a thread waiting on an idle
+ * human simply blocks until the human types or the deadline passes; on a
+ * virtual thread, that wait costs no platform thread. Input that was
+ * typed too late for a deadline is thrown away, see discardInput().
+ */
+public class SocketTerminal implements Terminal {
+
+	// CONSTANTS
+
+    private static final int BUFFER_SIZE = 1 << 10;
+
+	// STATE
+
+    private final Socket socket;
+    private final InputStream in;
+    private final PrintStream out;
+
+    // input that has been received but not yet split into words
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param socket: the connection to the human
+     */
+    public SocketTerminal(Socket socket) throws IOException {
+        this.socket = socket;
+        socket.setTcpNoDelay(true);
+        this.in = socket.getInputStream();
+        this.out = new PrintStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE),
+                false, StandardCharsets.UTF_8.name());
+    }
+
+    @Override
+    public PrintStream out(){
+        return out;
+    }
+
+    /**
+     * Words are split on ASCII whitespace; the game only ever asks for
+     * numbers and names made of letters.
+     */
+    @Override
+    public String next(long deadline) throws IOException {
+        out.flush();
+        if (out.checkError()){
+            throw new EOFException("The connection was closed.");
+        }
+        StringBuilder word = null;
+        while (true){
+            if (position == limit && !fill(deadline)){
+                // the rest of the word would otherwise answer the next prompt
+                discardInput();
+                return null;
+            }
+            char c = (char) (buffer[position++] & 0xFF);
+            if (Character.isWhitespace(c)){
+                if (word != null){
+                    return word.toString();
+                }
+            }else{
+                if (word == null){
+                    word = new StringBuilder();
+                }
+                word.append(c);
+            }
+        }
+    }
+
+    /**
+     * Drops the input in the buffer and whatever else has arrived on the
+     * socket. Input still on its way is not waited for; the Model discards
+     * again before every turn.
+     */
+    @Override
+    public void discardInput() throws IOException {
+        position = 0;
+        limit = 0;
+        int available;
+        while ((available = in.available()) > 0){
+            if (in.read(buffer, 0, Math.min(available, buffer.length)) < 0){
+                throw new EOFException("The connection was closed.");
+            }
+        }
+    }
+
+    /**
+     * Reads more input into the buffer.
+     *
+     * @return false if the deadline passed first
+     */
+    private boolean fill(long deadline) throws IOException {
+        int timeout = 0;
+        if (deadline != NO_DEADLINE){
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0){
+                return false;
+            }
+            timeout = (int) Math.max(1, Math.min(Integer.MAX_VALUE, remaining / 1000000));
+        }
+        socket.setSoTimeout(timeout);
+        int read;
+        try {
+            read = in.read(buffer);
+        } catch (SocketTimeoutException e){
+            return false;
+        }
+        if (read < 0){
+            throw new EOFException("The connection was closed.");
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    /** Sends anything still buffered, then closes the connection. */
+    @Override
+    public void close() throws IOException {
+        out.flush();
+        socket.close();
+    }
+
+}
@@ -0,0 +1,710 @@
+package ArmsRace;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lets browsers watch games live. A small page at / follows the server-sent
+ * event stream at /events, which carries one event per turn of every game
+ * being watched: the research points that changed, every Player's
+ * decisions, and the attacks of the turn.
+ *
+ * A game publishes through a Feed. Once per turn, the game's own thread
+ * encodes what happened and offers it to a bounded lock-free queue; if the
+ * queue is full the turn is dropped, never waited for, and the next one is
+ * sent in full. A single broadcaster thread takes the turns off the queue,
+ * turns each into the bytes of an event once, and hands the same bytes to
+ * every spectator. Each spectator is written to by a virtual thread of its
+ * own, from a bounded queue of its own; a spectator too slow to keep up
+ * skips ahead to a snapshot of every game instead of holding anybody up.
+ * The engine therefore does the same work for one spectator as for
+ * thousands, and none at all while nobody is watching. While there is
+ * nothing to hand out, the broadcaster sleeps until a game or a spectator
+ * wakes it.
+ */
+public final class SpectatorServer implements Closeable {
+
+	// CONSTANTS
+
+    public static final int DEFAULT_PORT = 7461;
+    // e.g. -DArmsRace.spectatorPort=7461 to watch an interactive game
+    public static final String PORT_PROPERTY = "ArmsRace.spectatorPort";
+
+    private static final int QUEUE_CAPACITY = 1 << 12;
+    private static final int SPECTATOR_CAPACITY = 256;
+    private static final long KEEPALIVE_SECONDS = 15;
+
+    private static final char[] DECISION_CODES = {'R', 'E', 'S', 'N', '-'};
+    private static final byte[] KEEPALIVE = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+	// STATE
+
+    private final HttpServer http;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final BoundedQueue<Update> queue = new BoundedQueue<>(QUEUE_CAPACITY);
+    // the ends of games that did not fit in the queue; an end must get
+    // through, or the game would stay on the page forever
+    private final ConcurrentLinkedQueue<Update> ends = new ConcurrentLinkedQueue<>();
+    private final CopyOnWriteArrayList<Spectator> spectators = new CopyOnWriteArrayList<>();
+    private final Thread broadcaster;
+
+    // the games being watched as the broadcaster last saw them, only ever
+    // touched by the broadcaster
+    private final Map<Integer, Live> games = new HashMap<>();
+
+    private final AtomicInteger nextGame = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private volatile boolean closed = false;
+    // set while the broadcaster sleeps, so that only then does anybody
+    // have to wake it
+    private volatile boolean sleeping = false;
+
+    /**
+     * Constructor. Starts serving straight away.
+     *
+     * @param port: the port to listen on, or 0 for any free port
+     * @param bindAddress: the address to listen on, or null for the
+     *      loopback address only
+     */
+    public SpectatorServer(int port, InetAddress bindAddress) throws IOException {
+        InetAddress address = bindAddress != null ? bindAddress : InetAddress.getLoopbackAddress();
+        http = HttpServer.create(new InetSocketAddress(address, port), 0);
+        http.setExecutor(executor);
+        http.createContext("/", this::page);
+        http.createContext("/events", this::stream);
+        http.start();
+        broadcaster = Thread.ofPlatform().daemon().name("ArmsRace-spectators").start(this::broadcast);
+    }
+
+    /**
+     * Opens a feed for a game. Call its publish() after every turn, and its
+     * finish() once the game is over, or its close() if the game ends any
+     * other way.
+     *
+     * @param label: what to call the game on the page
+     * @param state: the game
+     */
+    public Feed feed(String label, GameState state){
+        return new Feed(nextGame.getAndIncrement(), label, state);
+    }
+
+    /** Returns the port the server listens on. */
+    public int getPort(){
+        return http.getAddress().getPort();
+    }
+
+    /** Returns the number of spectators connected. */
+    public int getSpectators(){
+        return spectators.size();
+    }
+
+    /** Returns the number of turns dropped because the queue was full. */
+    public long getDropped(){
+        return dropped.sum();
+    }
+
+    /** Returns the number of times a slow spectator skipped ahead. */
+    public long getSkipped(){
+        return skipped.sum();
+    }
+
+    /** The publishing end of one game; only the game's thread may use it. */
+    public final class Feed implements AutoCloseable {
+
+        private final int id;
+        private final GameState state;
+        private final int[] published;
+        // whether the next turn must carry every research point, because
+        // spectators missed the last one
+        private boolean full = true;
+        private boolean started = false;
+        private boolean finished = false;
+        private final String label;
+
+        private Feed(int id, String label, GameState state){
+            this.id = id;
+            this.label = label;
+            this.state = state;
+            this.published = new int[state.size];
+        }
+
+        /** Publishes the turn just resolved. Never blocks. */
+        public void publish(){
+            if (spectators.isEmpty()){
+                // nobody is watching: do nothing but remember to catch up
+                full = true;
+                return;
+            }
+            if (!started){
+                started = offer(new Update(id, Update.START, state.turn, label, state.names.clone(),
+                        state.researchPoints.clone(), null, null));
+                if (!started){
+                    return;
+                }
+            }
+            int size = state.size;
+            int changes = 0;
+            for (int seat = 0; seat < size; seat++){
+                if (full || published[seat] != state.researchPoints[seat]){
+                    changes++;
+                }
+            }
+            int[] seats = new int[changes];
+            int[] points = new int[changes];
+            int c = 0;
+            for (int seat = 0; seat < size; seat++){
+                if (full || published[seat] != state.researchPoints[seat]){
+                    seats[c] = seat;
+                    points[c++] = state.researchPoints[seat];
+                }
+            }
+
+            StringBuilder sb = new StringBuilder(64 + size * 8);
+            sb.append("{\"game\":").append(id).append(",\"turn\":").append(state.turn);
+            sb.append(",\"full\":").append(full).append(",\"seats\":");
+            appendArray(sb, seats);
+            sb.append(",\"points\":");
+            appendArray(sb, points);
+            sb.append(",\"decisions\":\"");
+            for (int seat = 0; seat < size; seat++){
+                sb.append(DECISION_CODES[state.decisionOne[seat]]).append(DECISION_CODES[state.decisionTwo[seat]]);
+            }
+            sb.append("\",\"attacks\":[");
+            appendAttacks(sb);
+            sb.append("]}");
+
+            if (offer(new Update(id, Update.TURN, state.turn, null, null, null, new int[][]{seats, points},
+                    sb.toString()))){
+                System.arraycopy(state.researchPoints, 0, published, 0, size);
+                full = false;
+            }else{
+                full = true;
+            }
+        }
+
+        /**
+         * Announces the end of the game.
+         *
+         * @param winners: the seats of the winners, if any
+         */
+        public void finish(int[] winners){
+            if (finished){
+                return;
+            }
+            finished = true;
+            if (!started){
+                return;
+            }
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"game\":").append(id).append(",\"turn\":").append(state.turn).append(",\"winners\":");
+            appendArray(sb, winners);
+            sb.append('}');
+            Update end = new Update(id, Update.END, state.turn, null, null, null, null, sb.toString());
+            if (!queue.offer(end)){
+                // handled once the broadcaster is past this game's turns
+                end.after = queue.offered();
+                ends.add(end);
+            }
+            wake();
+        }
+
+        /**
+         * Takes the game off the page if it was not finished, as when it
+         * failed, so that the server does not keep it forever.
+         */
+        @Override
+        public void close(){
+            finish(new int[0]);
+        }
+
+        /** Every attack of the turn: [attacker, target, "S" or "N", damage or landed]. */
+        private void appendAttacks(StringBuilder sb){
+            boolean first = true;
+            for (int attacker = 0; attacker < state.size; attacker++){
+                Model.Decision one = state.getDecisionOne(attacker);
+                Model.Decision two = state.getDecisionTwo(attacker);
+                byte outcomes = state.outcomes[attacker];
+                if (one == Model.Decision.NUCLEAR && two == Model.Decision.NUCLEAR){
+                    first = appendAttack(sb, first, attacker, state.nuclearTarget[attacker], 'N',
+                            (outcomes & GameState.NUKE_LANDED) != 0 ? 1 : 0);
+                    continue;
+                }
+                if (one == Model.Decision.SABOTAGE){
+                    first = appendAttack(sb, first, attacker, state.sabotageTargetOne[attacker], 'S',
+                            (outcomes & GameState.SABOTAGE_ONE_HEAVY) != 0 ? 3 : 2);
+                }
+                if (two == Model.Decision.SABOTAGE){
+                    first = appendAttack(sb, first, attacker, state.sabotageTargetTwo[attacker], 'S',
+                            (outcomes & GameState.SABOTAGE_TWO_HEAVY) != 0 ? 3 : 2);
+                }
+            }
+        }
+
+        private boolean appendAttack(StringBuilder sb, boolean first, int attacker, int target, char kind, int amount){
+            if (!first){
+                sb.append(',');
+            }
+            sb.append('[').append(attacker).append(',').append(target).append(",\"").append(kind)
+                    .append("\",").append(amount).append(']');
+            return false;
+        }
+
+        private boolean offer(Update update){
+            if (queue.offer(update)){
+                wake();
+                return true;
+            }
+            dropped.increment();
+            return false;
+        }
+    }
+
+    /** One game's news, as it leaves the game's thread. */
+    private static final class Update {
+
+        static final int START = 0;
+        static final int TURN = 1;
+        static final int END = 2;
+
+        final int game;
+        final int kind;
+        final int turn;
+        final String label;
+        final String[] names;
+        final int[] points;
+        // the seats whose points changed, and their points
+        final int[][] changes;
+        final String json;
+        // for an end that did not fit in the queue, the number of updates
+        // offered before it
+        long after;
+
+        Update(int game, int kind, int turn, String label, String[] names, int[] points,
+               int[][] changes, String json){
+            this.game = game;
+            this.kind = kind;
+            this.turn = turn;
+            this.label = label;
+            this.names = names;
+            this.points = points;
+            this.changes = changes;
+            this.json = json;
+        }
+    }
+
+    /** A game as the broadcaster last saw it, to catch new spectators up. */
+    private static final class Live {
+
+        final String label;
+        final String[] names;
+        final int[] points;
+        int turn;
+
+        Live(Update start){
+            this.label = start.label;
+            this.names = start.names;
+            this.points = start.points;
+            this.turn = start.turn;
+        }
+
+        byte[] snapshot(int id){
+            StringBuilder sb = new StringBuilder(64 + names.length * 16);
+            sb.append("{\"game\":").append(id).append(",\"label\":");
+            appendString(sb, label);
+            sb.append(",\"turn\":").append(turn).append(",\"names\":[");
+            for (int seat = 0; seat < names.length; seat++){
+                if (seat > 0){
+                    sb.append(',');
+                }
+                appendString(sb, names[seat]);
+            }
+            sb.append("],\"points\":");
+            appendArray(sb, points);
+            sb.append('}');
+            return event("snapshot", sb.toString());
+        }
+    }
+
+    /** A browser watching, and the events waiting to be sent to it. */
+    private static final class Spectator {
+
+        final BlockingQueue<byte[]> pending = new ArrayBlockingQueue<>(SPECTATOR_CAPACITY);
+        // set when the spectator is new or fell behind, until it has been
+        // caught up; only the broadcaster writes it after that
+        volatile boolean behind = true;
+    }
+
+    /** The broadcaster: takes turns off the queue and hands them out. */
+    private void broadcast(){
+        while (!closed){
+            catchUp();
+            Update update = null;
+            Update end = ends.peek();
+            if (end != null && queue.polled() >= end.after){
+                update = ends.poll();
+            }else{
+                update = queue.poll();
+            }
+            if (update == null){
+                sleep();
+                continue;
+            }
+            byte[] event;
+            switch (update.kind){
+                case Update.START: {
+                    Live live = new Live(update);
+                    games.put(update.game, live);
+                    event = live.snapshot(update.game);
+                    break;
+                }
+                case Update.TURN: {
+                    Live live = games.get(update.game);
+                    if (live == null){
+                        continue;
+                    }
+                    int[] seats = update.changes[0];
+                    int[] points = update.changes[1];
+                    for (int c = 0; c < seats.length; c++){
+                        live.points[seats[c]] = points[c];
+                    }
+                    live.turn = update.turn;
+                    event = event("turn", update.json);
+                    break;
+                }
+                default:
+                    games.remove(update.game);
+                    event = event("end", update.json);
+            }
+            for (Spectator spectator : spectators){
+                if (!spectator.behind && !spectator.pending.offer(event)){
+                    spectator.behind = true;
+                    skipped.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sleeps until woken, unless there is something to do after all. The
+     * flag is set before looking, and looked at by wake() after the work is
+     * handed over, so one of the two always sees the other.
+     */
+    private void sleep(){
+        sleeping = true;
+        if (!hasWork()){
+            LockSupport.park(this);
+        }
+        sleeping = false;
+    }
+
+    /** Wakes the broadcaster if it sleeps. */
+    private void wake(){
+        if (sleeping){
+            LockSupport.unpark(broadcaster);
+        }
+    }
+
+    private boolean hasWork(){
+        if (closed || queue.hasNext()){
+            return true;
+        }
+        Update end = ends.peek();
+        if (end != null && queue.polled() >= end.after){
+            return true;
+        }
+        for (Spectator spectator : spectators){
+            if (spectator.behind && spectator.pending.isEmpty()){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Sends spectators that are new or fell behind a snapshot of every game. */
+    private void catchUp(){
+        for (Spectator spectator : spectators){
+            if (spectator.behind && spectator.pending.isEmpty()){
+                for (Map.Entry<Integer, Live> game : games.entrySet()){
+                    spectator.pending.offer(game.getValue().snapshot(game.getKey()));
+                }
+                spectator.behind = false;
+            }
+        }
+    }
+
+    /** Serves one spectator's event stream, until it goes away. */
+    private void stream(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        Spectator spectator = new Spectator();
+        spectators.add(spectator);
+        wake();
+        try (OutputStream out = exchange.getResponseBody()){
+            while (!closed){
+                byte[] event = spectator.pending.poll(KEEPALIVE_SECONDS, TimeUnit.SECONDS);
+                out.write(event != null ? event : KEEPALIVE);
+                // send whatever else is waiting along with it
+                while ((event = spectator.pending.poll()) != null){
+                    out.write(event);
+                }
+                out.flush();
+                if (spectator.behind){
+                    // it can be caught up now that it has room
+                    wake();
+                }
+            }
+        } catch (IOException | InterruptedException e){
+            // the spectator has gone away
+        } finally {
+            spectators.remove(spectator);
+            exchange.close();
+        }
+    }
+
+    /** Serves the page that draws the games from the event stream. */
+    private void page(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestURI().getPath().equals("/")){
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = PAGE.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()){
+            out.write(body);
+        }
+    }
+
+    private static byte[] event(String name, String json){
+        return ("event: " + name + "\ndata: " + json + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendArray(StringBuilder sb, int[] values){
+        sb.append('[');
+        for (int x = 0; x < values.length; x++){
+            if (x > 0){
+                sb.append(',');
+            }
+            sb.append(values[x]);
+        }
+        sb.append(']');
+    }
+
+    private static void appendString(StringBuilder sb, String s){
+        sb.append('"');
+        for (int x = 0; x < s.length(); x++){
+            char c = s.charAt(x);
+            if (c == '"' || c == '\\'){
+                sb.append('\\').append(c);
+            }else if (c < 0x20){
+                sb.append(String.format("\\u%04x", (int) c));
+            }else{
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    /** Stops serving and disconnects every spectator. */
+    @Override
+    public void close(){
+        closed = true;
+        http.stop(0);
+        executor.shutdownNow();
+        broadcaster.interrupt();
+    }
+
+    /**
+     * A bounded queue that many threads may offer to without locks, and
+     * one thread polls, after Dmitry Vyukov's bounded MPMC queue: every
+     * slot carries a sequence number that says whose turn it is to use it.
+     */
+    static final class BoundedQueue<T> {
+
+        private final AtomicReferenceArray<T> items;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private long head = 0;
+
+        /**
+         * Constructor.
+         *
+         * @param capacity: the number of items it holds, a power of two
+         */
+        BoundedQueue(int capacity){
+            if (capacity < 2 || Integer.bitCount(capacity) != 1){
+                throw new IllegalArgumentException("The capacity must be a power of two.");
+            }
+            items = new AtomicReferenceArray<>(capacity);
+            sequences = new AtomicLongArray(capacity);
+            for (int slot = 0; slot < capacity; slot++){
+                sequences.set(slot, slot);
+            }
+            mask = capacity - 1;
+        }
+
+        /** Adds an item, unless the queue is full. Never blocks. */
+        boolean offer(T item){
+            long position = tail.get();
+            while (true){
+                int slot = (int) (position & mask);
+                long difference = sequences.get(slot) - position;
+                if (difference == 0){
+                    if (tail.compareAndSet(position, position + 1)){
+                        items.set(slot, item);
+                        sequences.set(slot, position + 1);
+                        return true;
+                    }
+                    position = tail.get();
+                }else if (difference < 0){
+                    return false;
+                }else{
+                    position = tail.get();
+                }
+            }
+        }
+
+        /** Returns the number of items offered so far. */
+        long offered(){
+            return tail.get();
+        }
+
+        /** Returns whether poll() would return an item. */
+        boolean hasNext(){
+            return sequences.get((int) (head & mask)) == head + 1;
+        }
+
+        /** Returns the number of items polled so far. */
+        long polled(){
+            return head;
+        }
+
+        /** Takes the oldest item, or returns null. Only one thread may poll. */
+        T poll(){
+            int slot = (int) (head & mask);
+            if (sequences.get(slot) != head + 1){
+                return null;
+            }
+            T item = items.get(slot);
+            items.set(slot, null);
+            sequences.set(slot, head + mask + 1);
+            head++;
+            return item;
+        }
+    }
+
+    /**
+     * Runs headless games one after another for spectators to watch, at a
+     * pace a human can follow.
+     *
+     * @param args: [port] [players] [milliseconds per turn]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        long turnMillis = args.length > 2 ? Long.parseLong(args[2]) : 500;
+
+        SpectatorServer server = new SpectatorServer(port, null);
+        System.out.println(String.format("Watch at http://localhost:%d/", server.getPort()));
+
+        List<String> names = new ArrayList<>();
+        NameSource.empty().fill(names, players);
+        for (long game = 0; ; game++){
+            Simulation sim = new Simulation(names, Tournament.gameSeed(System.nanoTime(), game));
+            Feed feed = server.feed("Game " + game, sim.getState());
+            SimulationResult result = sim.result();
+            while (result.getWinnerSeats().length == 0 && sim.getTurn() < Simulation.DEFAULT_MAX_TURNS){
+                sim.playTurn();
+                feed.publish();
+                result = sim.result();
+                Thread.sleep(turnMillis);
+            }
+            feed.finish(result.getWinnerSeats());
+        }
+    }
+
+    private static final String PAGE = """
+            <!DOCTYPE html>
+            <html><head><meta charset="utf-8"><title>AI Arms Race</title>
+            <style>
+            body { font-family: monospace; }
+            table { border-collapse: collapse; margin: 1em 0; }
+            td, th { padding: 0 1em; text-align: left; }
+            .hit { color: #b00; }
+            </style></head>
+            <body><h1>AI Arms Race</h1><div id="games"></div>
+            <script>
+            const games = new Map();
+            const root = document.getElementById("games");
+            const codes = {R: "RESEARCH", E: "ESPIONAGE", S: "SABOTAGE", N: "NUCLEAR", "-": ""};
+            const esc = s => String(s).replace(/[&<>"']/g, c => "&#" + c.charCodeAt(0) + ";");
+            function draw(id) {
+              const g = games.get(id);
+              if (!g.el) { g.el = document.createElement("div"); root.prepend(g.el); }
+              const rows = g.names.map((name, seat) => ({name, seat, points: g.points[seat]}))
+                .sort((a, b) => b.points - a.points).slice(0, 20)
+                .map(r => "<tr><td>" + esc(r.name) + "</td><td>" + r.points + "</td><td>" +
+                  (g.decisions ? codes[g.decisions[2 * r.seat]] + " " + codes[g.decisions[2 * r.seat + 1]] : "") +
+                  "</td></tr>").join("");
+              const attacks = (g.attacks || []).filter(a => a[2] === "N")
+                .map(a => "<div class='hit'>" + esc(g.names[a[0]]) + " nuked " + esc(g.names[a[1]]) +
+                  (a[3] ? ": landed" : ": failed") + "</div>").join("");
+              g.el.innerHTML = "<h2>" + esc(g.label) + ", turn " + g.turn + (g.result || "") + "</h2>" +
+                "<table><tr><th>country</th><th>research</th><th>decisions</th></tr>" + rows + "</table>" + attacks;
+            }
+            const source = new EventSource("/events");
+            source.addEventListener("snapshot", e => {
+              const s = JSON.parse(e.data);
+              const g = games.get(s.game) || {};
+              Object.assign(g, s);
+              games.set(s.game, g);
+              draw(s.game);
+            });
+            source.addEventListener("turn", e => {
+              const t = JSON.parse(e.data);
+              const g = games.get(t.game);
+              if (!g) return;
+              t.seats.forEach((seat, i) => g.points[seat] = t.points[i]);
+              g.turn = t.turn; g.decisions = t.decisions; g.attacks = t.attacks;
+              draw(t.game);
+            });
+            source.addEventListener("end", e => {
+              const t = JSON.parse(e.data);
+              const g = games.get(t.game);
+              if (!g) return;
+              g.result = ", won by " + esc(t.winners.map(s => g.names[s]).join(" and ") || "nobody");
+              draw(t.game);
+              setTimeout(() => { g.el.remove(); games.delete(t.game); }, 10000);
+            });
+            </script></body></html>
+            """;
+
+}
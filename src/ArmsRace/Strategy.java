@@ -0,0 +1,84 @@
+package ArmsRace;
+
+/**
+ * How a computer Player chooses its decisions. Every turn, the Player's
+ * Strategy is shown the game as that Player sees it, and fills in a Choice:
+ * two decisions, and the targets they need.
+ *
+ * A Strategy may remember things between turns, so every Player is given
+ * an instance of its own. Large games choose the computers' decisions in
+ * parallel, so a Strategy must not share mutable state with other
+ * instances without guarding it.
+ *
+ * A Strategy that draws its decisions from weights may also split its
+ * choice in two, see isBatched(). Every batched computer is then weighed
+ * into one flat array before any of them draws, and all their decisions
+ * are drawn from it in a single sweep.
+ */
+public interface Strategy {
+
+    /** The number of weights weigh() puts down, one per decision ordinal. */
+    int BATCH_WEIGHTS = Model.Decision.NUCLEAR.ordinal() + 1;
+
+    /**
+     * Chooses the decisions of the Player for the current turn.
+     *
+     * @param view: the game, as the Player sees it
+     * @param choice: where to put the decisions and targets; reset to
+     *      RESEARCH, RESEARCH with no targets before every call
+     */
+    void choose(GameView view, Choice choice);
+
+    /**
+     * Returns whether the Strategy chooses in two halves, weigh() and then
+     * draw(), that together do what choose() does.
+     */
+    default boolean isBatched(){
+        return false;
+    }
+
+    /**
+     * The first half of a batched choose(): picks the targets and weighs
+     * every decision, without drawing the decisions.
+     *
+     * @param view: the game, as the Player sees it
+     * @param choice: where to put the targets; reset as for choose()
+     * @param weights: where to put the weights, indexed by decision ordinal
+     * @param offset: where this Player's BATCH_WEIGHTS weights start
+     */
+    default void weigh(GameView view, Choice choice, double[] weights, int offset){
+        throw new UnsupportedOperationException(getName() + " does not batch its choices.");
+    }
+
+    /**
+     * The second half of a batched choose(): draws both decisions from the
+     * weights that weigh() put down.
+     *
+     * @param view: the game, as the Player sees it
+     * @param choice: the Choice weigh() put the targets in
+     * @param weights: the weights from weigh()
+     * @param offset: where this Player's weights start
+     */
+    default void draw(GameView view, Choice choice, double[] weights, int offset){
+        throw new UnsupportedOperationException(getName() + " does not batch its choices.");
+    }
+
+    /**
+     * Returns the threat the Player adds to an opponent that sabotaged it,
+     * when it reassesses its opponents before choose().
+     */
+    default int getSabotageThreat(){
+        return HeuristicGenome.DEFAULT.get(HeuristicGenome.Gene.BASE_ADD_THREAT);
+    }
+
+    /** Returns the threat the Player adds to an opponent that nuked it. */
+    default int getNuclearThreat(){
+        return HeuristicGenome.DEFAULT.get(HeuristicGenome.Gene.BASE_ADD_EXTREME_THREAT);
+    }
+
+    /** Returns a short name for the Strategy, for reports. */
+    default String getName(){
+        return getClass().getSimpleName();
+    }
+
+}
@@ -0,0 +1,46 @@
+package ArmsRace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Where a human plays from: the console, or a connection to the GameServer.
+ * The Model prints to a human's terminal and reads the human's choices from
+ * it, one whitespace-separated word at a time.
+ */
+public interface Terminal extends Closeable {
+
+    /** Passed to next() when the human may take as long as they like. */
+    long NO_DEADLINE = Long.MAX_VALUE;
+
+    /** Returns the stream the human reads from. */
+    PrintStream out();
+
+    /**
+     * Flushes anything printed so far, then waits for the next word the
+     * human types.
+     *
+     * @param deadline: the System.nanoTime() after which to give up, or
+     *      NO_DEADLINE
+     * @return the word, or null if the deadline passed first
+     * @throws IOException if the human has gone away
+     */
+    String next(long deadline) throws IOException;
+
+    /**
+     * Drops whatever the human has typed that was not read yet, so that
+     * answers typed after a deadline are not taken for answers to the next
+     * prompts.
+     *
+     * @throws IOException if the human has gone away
+     */
+    default void discardInput() throws IOException {
+    }
+
+    /** Returns whether the terminal understands ANSI escape sequences. */
+    default boolean supportsAnsi(){
+        return false;
+    }
+
+}
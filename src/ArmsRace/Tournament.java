@@ -0,0 +1,384 @@
+package ArmsRace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Plays a large number of independent Simulations with the same seating,
+ * spread across every available core with fork/join, and merges their
+ * statistics at the end.
+ *
+ * Every game is created, played and discarded by the worker thread that
+ * picked it up, and every game derives its randomness from its own seed, so
+ * the results do not depend on how the work was split between threads.
+ *
+ * A Tournament given a checkpoint file plays its games in rounds and saves
+ * its progress after each one. Run again with the same seed, it picks up
+ * after the last completed round instead of starting over. A checkpoint
+ * also saves how much of the replay file the completed rounds filled, so
+ * a resumed Tournament that records replays must reopen the file with
+ * ReplayWriter.resume(), see checkpointReplayLength().
+ *
+ * Every seat plays the HeuristicStrategy unless it is given another, so
+ * that Strategies can be pitted against each other; TournamentStats
+ * reports their win rates side by side.
+ */
+public class Tournament {
+
+	// CONSTANTS
+
+    // below this many games, a batch is played on the current thread
+    private static final int BATCH_SIZE = 64;
+
+    // how often the command line tournament saves its progress
+    private static final long CHECKPOINT_GAMES = 100000;
+
+	// STATE
+
+    private final List<String> names;
+    private final long seed;
+    // the factory of each seat's Strategy, or null for the default
+    private final List<Supplier<? extends Strategy>> strategies;
+    private final String[] strategyNames;
+    private int maxTurns = Simulation.DEFAULT_MAX_TURNS;
+    private ReplayWriter replayWriter;
+    private Path checkpoint;
+    private long checkpointInterval;
+
+    /**
+     * Constructor.
+     *
+     * @param names: the names of the Players, in seating order
+     * @param seed: the seed the seed of every game is derived from
+     */
+    public Tournament(List<String> names, long seed){
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.seed = seed;
+        this.strategies = new ArrayList<>(Collections.nCopies(names.size(), null));
+        this.strategyNames = new String[names.size()];
+        for (int seat = 0; seat < strategyNames.length; seat++){
+            strategyNames[seat] = new HeuristicStrategy().getName();
+        }
+    }
+
+    /**
+     * Has the Player in the given seat play by another Strategy in every
+     * game. Games with other Strategies are not recorded into the replay
+     * file, since replays are played back with the default Strategy.
+     *
+     * @param seat: the seat
+     * @param factory: makes a new Strategy for every game
+     */
+    public void setStrategy(int seat, Supplier<? extends Strategy> factory){
+        strategies.set(seat, factory);
+        strategyNames[seat] = factory.get().getName();
+    }
+
+    /**
+     * Returns the factory of the Strategy with the given name: heuristic,
+     * random, mcts for DEFAULT_BUDGET_MILLIS a move, mcts:n for n rollouts
+     * a move, or heuristic:GENE=v;GENE=v for tuned constants.
+     *
+     * @param name: the name of a Strategy
+     */
+    static Supplier<Strategy> strategy(String name){
+        if (name.startsWith("mcts:")){
+            // a fixed number of rollouts per move instead of a time budget
+            int rollouts = Integer.parseInt(name.substring("mcts:".length()));
+            return () -> new MctsStrategy(0, rollouts, MctsStrategy.DEFAULT_HORIZON);
+        }
+        if (name.startsWith("heuristic:")){
+            // tuned constants, as GeneticTuner prints them
+            HeuristicGenome genome = HeuristicGenome.parse(name.substring("heuristic:".length()));
+            return () -> new HeuristicStrategy(genome);
+        }
+        switch (name){
+            case "heuristic": return HeuristicStrategy::new;
+            case "random": return RandomStrategy::new;
+            case "mcts": return MctsStrategy::new;
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + name);
+        }
+    }
+
+    /**
+     * Sets the turn limit of every game.
+     *
+     * @param maxTurns: the turn limit, see Simulation.setMaxTurns()
+     */
+    public void setMaxTurns(int maxTurns){
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Records every game into the given replay file. Games are written in
+     * the order they finish, which depends on the threads.
+     *
+     * @param replayWriter: the file to record into, or null to not record
+     */
+    public void setReplayWriter(ReplayWriter replayWriter){
+        this.replayWriter = replayWriter;
+    }
+
+    /**
+     * Saves the progress of the tournament every given number of games, and
+     * resumes from the file if it already exists.
+     *
+     * @param checkpoint: the checkpoint file, or null to not checkpoint
+     * @param everyGames: the number of games played between checkpoints
+     */
+    public void setCheckpoint(Path checkpoint, long everyGames){
+        if (everyGames < 1){
+            throw new IllegalArgumentException("everyGames must be at least 1.");
+        }
+        this.checkpoint = checkpoint;
+        this.checkpointInterval = everyGames;
+    }
+
+    /**
+     * Plays the given number of games on the common fork/join pool.
+     *
+     * @param games: the number of games to play
+     * @return the merged statistics of all games
+     */
+    public TournamentStats run(long games){
+        return run(games, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Plays the given number of games on the given pool.
+     *
+     * @param games: the number of games to play
+     * @param pool: the pool whose workers play the games
+     * @return the merged statistics of all games
+     */
+    public TournamentStats run(long games, ForkJoinPool pool){
+        if (games < 0){
+            throw new IllegalArgumentException("The number of games cannot be negative.");
+        }
+        if (checkpoint == null){
+            return pool.invoke(new Batch(0, games));
+        }
+
+        TournamentStats stats = new TournamentStats(names);
+        try {
+            if (Files.exists(checkpoint)){
+                stats = loadCheckpoint();
+            }
+            long played = stats.getGames();
+            while (played < games){
+                long to = Math.min(games, played + checkpointInterval);
+                stats.merge(pool.invoke(new Batch(played, to)));
+                played = to;
+                saveCheckpoint(stats);
+            }
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        return stats;
+    }
+
+    /**
+     * Writes the tournament's progress: its settings, the length of the
+     * replay file, or -1 if there is none, and the statistics of every game
+     * played so far. Games are played in order of their number, so the
+     * number of games played is all that is needed to resume.
+     */
+    private void saveCheckpoint(TournamentStats stats) throws IOException {
+        long replayLength = -1;
+        if (replayWriter != null){
+            replayWriter.flush();
+            replayLength = replayWriter.getLength();
+        }
+        try (Checkpoint.Output out = Checkpoint.Output.create(checkpoint)){
+            out.writeInt(Checkpoint.TOURNAMENT_MAGIC);
+            out.writeByte(Checkpoint.VERSION);
+            out.writeLong(seed);
+            out.writeInt(maxTurns);
+            out.writeLong(replayLength);
+            for (String strategy : strategyNames){
+                out.writeString(strategy);
+            }
+            stats.write(out);
+            out.commit();
+        }
+    }
+
+    private TournamentStats loadCheckpoint() throws IOException {
+        try (Checkpoint.Input in = new Checkpoint.Input(checkpoint)){
+            in.expectHeader(Checkpoint.TOURNAMENT_MAGIC);
+            long savedSeed = in.readLong();
+            int savedMaxTurns = in.readInt();
+            long replayLength = in.readLong();
+            boolean sameStrategies = true;
+            for (String strategy : strategyNames){
+                sameStrategies &= in.readString().equals(strategy);
+            }
+            TournamentStats stats = TournamentStats.read(in);
+            if (savedSeed != seed || savedMaxTurns != maxTurns || !sameStrategies
+                    || !stats.getNames().equals(names)){
+                throw new IllegalStateException(checkpoint + " belongs to a different tournament.");
+            }
+            if (replayWriter != null && replayWriter.getLength() != replayLength){
+                // the games played so far would be missing from the file
+                throw new IllegalStateException(replayLength < 0
+                        ? checkpoint + " was saved without recording replays."
+                        : "The replay file must be reopened with ReplayWriter.resume() at "
+                                + replayLength + " bytes to resume " + checkpoint + ".");
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Returns the seed of the tournament saved in a checkpoint file, or the
+     * given seed if there is no such file.
+     */
+    static long checkpointSeed(Path checkpoint, long seed) throws IOException {
+        if (!Files.exists(checkpoint)){
+            return seed;
+        }
+        try (Checkpoint.Input in = new Checkpoint.Input(checkpoint)){
+            in.expectHeader(Checkpoint.TOURNAMENT_MAGIC);
+            return in.readLong();
+        }
+    }
+
+    /**
+     * Returns the length of the replay file that the tournament saved in a
+     * checkpoint file had written, or -1 if it recorded no replays.
+     */
+    static long checkpointReplayLength(Path checkpoint) throws IOException {
+        try (Checkpoint.Input in = new Checkpoint.Input(checkpoint)){
+            in.expectHeader(Checkpoint.TOURNAMENT_MAGIC);
+            in.readLong();
+            in.readInt();
+            return in.readLong();
+        }
+    }
+
+    /** Derives the seed of a single game. */
+    static long gameSeed(long seed, long game){
+        return GameRandom.derive(seed, game);
+    }
+
+    /** A range of games, split in half until it is small enough to play. */
+    private class Batch extends RecursiveTask<TournamentStats> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+
+        private Batch(long from, long to){
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TournamentStats compute(){
+            if (to - from <= BATCH_SIZE){
+                TournamentStats stats = new TournamentStats(names);
+                for (long game = from; game < to; game++){
+                    Simulation sim = new Simulation(names, gameSeed(seed, game));
+                    sim.setMaxTurns(maxTurns);
+                    sim.setReplayWriter(replayWriter);
+                    for (int seat = 0; seat < strategies.size(); seat++){
+                        if (strategies.get(seat) != null){
+                            sim.setStrategy(seat, strategies.get(seat).get());
+                        }
+                    }
+                    stats.add(sim.run());
+                }
+                return stats;
+            }
+            long mid = (from + to) >>> 1;
+            Batch left = new Batch(from, mid);
+            left.fork();
+            TournamentStats stats = new Batch(mid, to).compute();
+            stats.merge(left.join());
+            return stats;
+        }
+    }
+
+    /**
+     * Runs a tournament from the command line and reports its throughput.
+     *
+     * @param args: [games] [players] [threads] [replay file, or -]
+     *      [checkpoint file, or -] [Strategies, e.g. heuristic,mcts:200,
+     *      repeated over the seats; see strategy()]
+     */
+    public static void main(String[] args) throws IOException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+        int numPlayers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+
+        ArrayList<String> names = new ArrayList<>();
+        for (int x = 0; x < numPlayers; x++){
+            names.add("CPU" + x);
+        }
+
+        long seed = System.nanoTime();
+        Path checkpoint = args.length > 4 && !args[4].equals("-") ? Paths.get(args[4]) : null;
+        boolean resuming = checkpoint != null && Files.exists(checkpoint);
+        if (checkpoint != null){
+            seed = checkpointSeed(checkpoint, seed);
+        }
+
+        Tournament tournament = new Tournament(names, seed);
+        if (args.length > 5){
+            String[] strategies = args[5].split(",");
+            for (int seat = 0; seat < numPlayers; seat++){
+                tournament.setStrategy(seat, strategy(strategies[seat % strategies.length].trim()));
+            }
+        }
+        ReplayWriter replayWriter = null;
+        if (args.length > 3 && !args[3].equals("-")){
+            Path replays = Paths.get(args[3]);
+            if (resuming){
+                long replayLength = checkpointReplayLength(checkpoint);
+                if (replayLength < 0){
+                    throw new IllegalArgumentException(checkpoint + " was saved without recording replays.");
+                }
+                replayWriter = ReplayWriter.resume(replays, replayLength);
+            }else{
+                replayWriter = new ReplayWriter(replays);
+            }
+        }
+        tournament.setReplayWriter(replayWriter);
+        if (checkpoint != null){
+            tournament.setCheckpoint(checkpoint, CHECKPOINT_GAMES);
+        }
+
+        GameMetrics.Dump metrics = GameMetrics.configureFromProperty(System.err);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        TournamentStats stats;
+        try {
+            stats = tournament.run(games, pool);
+        } finally {
+            pool.shutdown();
+            if (metrics != null){
+                metrics.close();
+            }
+            if (replayWriter != null){
+                replayWriter.close();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(stats);
+        System.out.println(String.format("%.0f games/s on %d threads", games / seconds, threads));
+    }
+
+}
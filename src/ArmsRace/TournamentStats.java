@@ -0,0 +1,267 @@
+package ArmsRace;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Win and game length statistics over a batch of Simulations that were all
+ * played with the same seating. Each worker thread fills its own instance;
+ * the instances are merged once the workers are done, so no locking is ever
+ * needed.
+ *
+ * No game is kept: wins are counted per seat and per Strategy, and the
+ * game lengths, the turns the first nukes were launched on and the spreads
+ * of the final research points go into QuantileSketches, so the statistics
+ * take the same memory after a billion games as after a thousand.
+ */
+public class TournamentStats {
+
+    private final List<String> names;
+    private final long[] wins;
+    private final long[] sharedWins;
+    // for every Strategy: the seats it played, its wins and its shared wins
+    private final Map<String, long[]> strategies = new TreeMap<>();
+
+    private long games = 0;
+    private long ties = 0;
+    private long unfinished = 0;
+    private final QuantileSketch turns = new QuantileSketch();
+    private final QuantileSketch firstNukes = new QuantileSketch();
+    private final QuantileSketch spreads = new QuantileSketch();
+
+    /**
+     * Constructor. Creates empty statistics.
+     *
+     * @param names: the names of the Players, in seating order
+     */
+    public TournamentStats(List<String> names){
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.wins = new long[names.size()];
+        this.sharedWins = new long[names.size()];
+    }
+
+    /**
+     * Records the outcome of one game.
+     *
+     * @param result: the outcome of a game played with this seating
+     */
+    public void add(SimulationResult result){
+        games++;
+        turns.add(result.getTurns());
+        if (result.getFirstNukeTurn() > 0){
+            firstNukes.add(result.getFirstNukeTurn());
+        }
+        spreads.add(result.getResearchSpread());
+
+        for (int seat = 0; seat < wins.length; seat++){
+            strategy(result.getStrategy(seat))[0]++;
+        }
+        int[] seats = result.getWinnerSeats();
+        if (seats.length == 0){
+            unfinished++;
+        }else if (seats.length == 1){
+            wins[seats[0]]++;
+            strategy(result.getStrategy(seats[0]))[1]++;
+        }else{
+            ties++;
+            for (int seat : seats){
+                sharedWins[seat]++;
+                strategy(result.getStrategy(seat))[2]++;
+            }
+        }
+    }
+
+    private long[] strategy(String name){
+        return strategies.computeIfAbsent(name, n -> new long[3]);
+    }
+
+    /**
+     * Folds the statistics of another batch into this one.
+     *
+     * @param other: statistics gathered with the same seating
+     */
+    public void merge(TournamentStats other){
+        if (!names.equals(other.names)){
+            throw new IllegalArgumentException("Cannot merge statistics of different seatings.");
+        }
+        for (int x = 0; x < wins.length; x++){
+            wins[x] += other.wins[x];
+            sharedWins[x] += other.sharedWins[x];
+        }
+        for (Map.Entry<String, long[]> entry : other.strategies.entrySet()){
+            long[] mine = strategy(entry.getKey());
+            for (int x = 0; x < mine.length; x++){
+                mine[x] += entry.getValue()[x];
+            }
+        }
+        games += other.games;
+        ties += other.ties;
+        unfinished += other.unfinished;
+        turns.merge(other.turns);
+        firstNukes.merge(other.firstNukes);
+        spreads.merge(other.spreads);
+    }
+
+    /** Writes the statistics into a tournament checkpoint. */
+    void write(Checkpoint.Output out) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names){
+            out.writeString(name);
+        }
+        for (int x = 0; x < wins.length; x++){
+            out.writeLong(wins[x]);
+            out.writeLong(sharedWins[x]);
+        }
+        out.writeInt(strategies.size());
+        for (Map.Entry<String, long[]> entry : strategies.entrySet()){
+            out.writeString(entry.getKey());
+            for (long value : entry.getValue()){
+                out.writeLong(value);
+            }
+        }
+        out.writeLong(games);
+        out.writeLong(ties);
+        out.writeLong(unfinished);
+        turns.write(out);
+        firstNukes.write(out);
+        spreads.write(out);
+    }
+
+    /** Reads statistics written by write(). */
+    static TournamentStats read(Checkpoint.Input in) throws IOException {
+        int size = in.readInt();
+        ArrayList<String> names = new ArrayList<>(size);
+        for (int x = 0; x < size; x++){
+            names.add(in.readString());
+        }
+        TournamentStats stats = new TournamentStats(names);
+        for (int x = 0; x < size; x++){
+            stats.wins[x] = in.readLong();
+            stats.sharedWins[x] = in.readLong();
+        }
+        int strategies = in.readInt();
+        for (int x = 0; x < strategies; x++){
+            long[] counts = stats.strategy(in.readString());
+            for (int y = 0; y < counts.length; y++){
+                counts[y] = in.readLong();
+            }
+        }
+        stats.games = in.readLong();
+        stats.ties = in.readLong();
+        stats.unfinished = in.readLong();
+        stats.turns.merge(QuantileSketch.read(in));
+        stats.firstNukes.merge(QuantileSketch.read(in));
+        stats.spreads.merge(QuantileSketch.read(in));
+        return stats;
+    }
+
+    /** Returns the names of the Players, in seating order. */
+    public List<String> getNames(){
+        return names;
+    }
+
+    /** Returns the number of games recorded. */
+    public long getGames(){
+        return games;
+    }
+
+    /** Returns the number of outright wins of the Player in the given seat. */
+    public long getWins(int seat){
+        return wins[seat];
+    }
+
+    /** Returns the number of tied first places of the Player in the given seat. */
+    public long getSharedWins(int seat){
+        return sharedWins[seat];
+    }
+
+    /** Returns the fraction of games won outright by the given seat. */
+    public double getWinRate(int seat){
+        return games == 0 ? 0 : (double) wins[seat] / games;
+    }
+
+    /** Returns the names of the Strategies that played, in alphabetical order. */
+    public List<String> getStrategies(){
+        return new ArrayList<>(strategies.keySet());
+    }
+
+    /**
+     * Returns the fraction of the seats played by the given Strategy that
+     * it won outright.
+     */
+    public double getStrategyWinRate(String strategy){
+        long[] counts = strategies.get(strategy);
+        return counts == null || counts[0] == 0 ? 0 : (double) counts[1] / counts[0];
+    }
+
+    /** Returns the number of games that ended in a tie. */
+    public long getTies(){
+        return ties;
+    }
+
+    /** Returns the number of games that hit the turn limit. */
+    public long getUnfinished(){
+        return unfinished;
+    }
+
+    /** Returns the average number of turns per game. */
+    public double getAverageTurns(){
+        return turns.getMean();
+    }
+
+    /** Returns the length of the shortest game, or 0 if there were none. */
+    public int getMinTurns(){
+        return (int) turns.getMin();
+    }
+
+    /** Returns the length of the longest game. */
+    public int getMaxTurns(){
+        return (int) turns.getMax();
+    }
+
+    /** Returns the distribution of the game lengths, in turns. */
+    public QuantileSketch getTurns(){
+        return turns;
+    }
+
+    /**
+     * Returns the distribution of the turns the first nuke was launched on,
+     * over the games that saw one.
+     */
+    public QuantileSketch getFirstNukes(){
+        return firstNukes;
+    }
+
+    /**
+     * Returns the distribution of the differences between the highest and
+     * the lowest final research points of every game.
+     */
+    public QuantileSketch getResearchSpreads(){
+        return spreads;
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d games, %d ties, %d unfinished", games, ties, unfinished));
+        sb.append(String.format("%nturns: %s", turns));
+        sb.append(String.format("%nfirst nuke in %d games, turn: %s", firstNukes.getCount(), firstNukes));
+        sb.append(String.format("%nresearch spread: %s", spreads));
+        for (int x = 0; x < names.size(); x++){
+            sb.append(String.format("%n%s : %d wins (%.2f%%), %d shared",
+                    names.get(x), wins[x], getWinRate(x) * 100, sharedWins[x]));
+        }
+        for (Map.Entry<String, long[]> entry : strategies.entrySet()){
+            long[] counts = entry.getValue();
+            sb.append(String.format("%n%s : %d seats, %d wins (%.2f%%), %d shared",
+                    entry.getKey(), counts[0], counts[1],
+                    getStrategyWinRate(entry.getKey()) * 100, counts[2]));
+        }
+        return sb.toString();
+    }
+
+}
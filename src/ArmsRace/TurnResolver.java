@@ -0,0 +1,170 @@
+package ArmsRace;
+
+import java.util.stream.IntStream;
+
+/**
+ * Plays the phases of a turn that every Player goes through: choosing the
+ * computers' decisions, passing the turn, and updating espionage.
+ *
+ * Within a phase, each Player only writes to its own seat and reads what
+ * the other seats held before the phase began. Passing the turn, in
+ * particular, reads the research points frozen at the start of the turn
+ * and writes into a next-turn buffer; sabotage and nuclear strikes are
+ * only recorded by their attackers, and merged into their targets once
+ * everybody has passed. The outcome of a turn therefore does not depend on
+ * the order of the Players, and large games run each phase in parallel.
+ */
+final class TurnResolver {
+
+	// CONSTANTS
+
+    // games with at least this many seats run each phase in parallel, if
+    // there is more than one core to run them on
+    static final int PARALLEL_THRESHOLD = 256;
+    private static final boolean MULTICORE = Runtime.getRuntime().availableProcessors() > 1;
+
+    private static final byte NUCLEAR = (byte) Model.Decision.NUCLEAR.ordinal();
+    private static final byte SABOTAGE = (byte) Model.Decision.SABOTAGE.ordinal();
+    private static final int RESEARCH_SUCCEEDED =
+            GameState.RESEARCH_ONE_SUCCEEDED | GameState.RESEARCH_TWO_SUCCEEDED;
+
+    private TurnResolver(){}
+
+    /**
+     * Lets every computer Player choose its decisions. Computers with a
+     * batched Strategy are all weighed into one array first, and then all
+     * their decisions are drawn from it in a single sweep; the others
+     * choose while the rest are weighed. Every seat draws from its own
+     * random stream, so the sweep does not change the game.
+     *
+     * @param state: the game
+     * @param turn: the turn being played
+     */
+    static void chooseComputerDecisions(GameState state, int turn){
+        long start = GameMetrics.begin(state);
+        FlightEvents.Phase event = new FlightEvents.Phase();
+        event.begin();
+        if (isParallel(state)){
+            IntStream.range(0, state.size).parallel().forEach(seat -> weighDecision(state, seat, turn));
+            IntStream.range(0, state.size).parallel().forEach(seat -> drawDecision(state, seat, turn));
+        }else{
+            for (int seat = 0; seat < state.size; seat++){
+                weighDecision(state, seat, turn);
+            }
+            for (int seat = 0; seat < state.size; seat++){
+                drawDecision(state, seat, turn);
+            }
+        }
+        GameMetrics.end(GameMetrics.Phase.DECIDE, start);
+        event.commit(state, GameMetrics.Phase.DECIDE);
+    }
+
+    private static void weighDecision(GameState state, int seat, int turn){
+        if (state.computer[seat]){
+            state.players[seat].weighDecision(turn, state.decisionWeights, seat * Strategy.BATCH_WEIGHTS);
+        }
+    }
+
+    private static void drawDecision(GameState state, int seat, int turn){
+        if (state.computer[seat]){
+            state.players[seat].drawDecision(turn, state.decisionWeights, seat * Strategy.BATCH_WEIGHTS);
+        }
+    }
+
+    /**
+     * Passes the turn for every Player, merges the attacks into their
+     * targets, makes the results the current research points, and brings
+     * the standings of the seats that moved up to date.
+     *
+     * @param state: the game, with every Player's decisions chosen
+     */
+    static void resolve(GameState state){
+        long start = GameMetrics.begin(state);
+        FlightEvents.Phase event = new FlightEvents.Phase();
+        event.begin();
+        if (isParallel(state)){
+            IntStream.range(0, state.size).parallel().forEach(seat -> state.players[seat].passTurn());
+        }else{
+            for (Player p : state.players){
+                p.passTurn();
+            }
+        }
+        mergeAttacks(state);
+        state.swapResearchPoints();
+        state.leaderboard.turnResolved(state.researchPoints);
+        GameMetrics.end(GameMetrics.Phase.PASS_TURN, start);
+        event.commit(state, GameMetrics.Phase.PASS_TURN);
+        GameMetrics.turn(state);
+    }
+
+    /**
+     * Lets every Player update what it knows of its opponents.
+     *
+     * @param state: the game, after resolve()
+     */
+    static void updateEspionage(GameState state){
+        long start = GameMetrics.begin(state);
+        FlightEvents.Phase event = new FlightEvents.Phase();
+        event.begin();
+        if (isParallel(state)){
+            IntStream.range(0, state.size).parallel().forEach(seat -> state.players[seat].updateEspionage());
+        }else{
+            for (Player p : state.players){
+                p.updateEspionage();
+            }
+        }
+        GameMetrics.end(GameMetrics.Phase.ESPIONAGE, start);
+        event.commit(state, GameMetrics.Phase.ESPIONAGE);
+    }
+
+    /**
+     * Applies every attack of the turn to its target: first all sabotage,
+     * then all nuclear strikes, so that the result does not depend on which
+     * attacker comes first. Tells the leaderboard about every seat whose
+     * points moved by more than the passive gain: those whose research
+     * succeeded when they passed, and those that were hit.
+     */
+    private static void mergeAttacks(GameState state){
+        Leaderboard leaderboard = state.leaderboard;
+        for (int attacker = 0; attacker < state.size; attacker++){
+            byte one = state.decisionOne[attacker];
+            byte two = state.decisionTwo[attacker];
+            byte outcomes = state.outcomes[attacker];
+            if ((outcomes & RESEARCH_SUCCEEDED) != 0){
+                leaderboard.moved(attacker);
+            }
+            if (one == NUCLEAR){
+                continue;
+            }
+            if (one == SABOTAGE){
+                int damage = (outcomes & GameState.SABOTAGE_ONE_HEAVY) != 0 ? 3 : 2;
+                state.players[state.sabotageTargetOne[attacker]].sabotagedBy(attacker, damage);
+                leaderboard.moved(state.sabotageTargetOne[attacker]);
+            }
+            if (two == SABOTAGE){
+                int damage = (outcomes & GameState.SABOTAGE_TWO_HEAVY) != 0 ? 3 : 2;
+                state.players[state.sabotageTargetTwo[attacker]].sabotagedBy(attacker, damage);
+                leaderboard.moved(state.sabotageTargetTwo[attacker]);
+            }
+        }
+        for (int attacker = 0; attacker < state.size; attacker++){
+            if (state.decisionOne[attacker] == NUCLEAR && state.decisionTwo[attacker] == NUCLEAR){
+                boolean landed = (state.outcomes[attacker] & GameState.NUKE_LANDED) != 0;
+                state.players[state.nuclearTarget[attacker]].nukedBy(attacker, landed);
+                if (landed){
+                    leaderboard.moved(state.nuclearTarget[attacker]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the game is large enough to be worth splitting across
+     * threads. Small games run each phase as a plain loop, which allocates
+     * nothing.
+     */
+    private static boolean isParallel(GameState state){
+        return MULTICORE && state.size >= PARALLEL_THRESHOLD;
+    }
+
+}
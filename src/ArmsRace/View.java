@@ -1,7 +1,258 @@
 package ArmsRace;
 
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
+ * What one human sees of the game. Every screen is built in a reusable
+ * buffer and written to the human's terminal in one go, instead of a line
+ * at a time, so that a slow link gets one packet per screen rather than
+ * dozens.
+ *
+ * On a terminal that understands ANSI escapes, the turn screen stays at
+ * the top of the terminal and only the lines that changed since the last
+ * turn are redrawn, typically the turn number, the research points, the
+ * last known values and the attack warnings. Prompts and answers go in a
+ * scrolling region below it, which is cleared every turn. What happened
+ * during a turn is therefore kept as news, and shown on the next screen,
+ * rather than printed as it happens.
+ *
  * Created by Administrator on 2/20/2017.
  */
 public class View {
+
+	// CONSTANTS
+
+    // e.g. -DArmsRace.ansi=false to always print whole screens
+    public static final String ANSI_PROPERTY = "ArmsRace.ansi";
+
+    private static final String ESC = "\033[";
+    private static final int DEFAULT_ROWS = 24;
+
+	// STATE
+
+    private final PrintStream out;
+    private final boolean ansi;
+    private final int rows;
+
+    // the screen being built, and the text that is written
+    private final StringBuilder screen = new StringBuilder(1 << 10);
+    private final StringBuilder frame = new StringBuilder(1 << 10);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer bytes = ByteBuffer.allocate(1 << 12);
+
+    // what happened since the last screen
+    private final List<String> news = new ArrayList<>();
+
+    // the lines of the turn screen on the terminal, or null if they have
+    // to be drawn afresh; and the first row that scrolls, below it, or 0
+    // if the whole terminal does
+    private List<String> shown = null;
+    private int scrollTop = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param terminal: the terminal of the human
+     */
+    public View(Terminal terminal){
+        this(terminal.out(), Boolean.parseBoolean(
+                System.getProperty(ANSI_PROPERTY, Boolean.toString(terminal.supportsAnsi()))));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param out: where the screens are written
+     * @param ansi: whether to redraw only what changed, with ANSI escapes
+     */
+    public View(PrintStream out, boolean ansi){
+        this.out = out;
+        this.ansi = ansi;
+        this.rows = terminalRows();
+    }
+
+    private static int terminalRows(){
+        try {
+            String lines = System.getenv("LINES");
+            return lines == null ? DEFAULT_ROWS : Math.max(1, Integer.parseInt(lines.trim()));
+        } catch (NumberFormatException e){
+            return DEFAULT_ROWS;
+        }
+    }
+
+    /**
+     * Keeps a line to show on the next screen.
+     *
+     * @param line: what happened
+     */
+    public void news(String line){
+        news.add(line);
+    }
+
+    /**
+     * Prints a line straight away, after any news.
+     *
+     * @param line: the line
+     */
+    public void println(String line){
+        screen.setLength(0);
+        appendNews();
+        screen.append(line).append('\n');
+        write(screen);
+    }
+
+    /**
+     * Prints a prompt for the human to answer.
+     *
+     * @param prompt: the question
+     */
+    public void prompt(String prompt){
+        println(prompt);
+    }
+
+    /**
+     * Shows the human the state of the game at the start of a turn: the
+     * news, any attacks on them, their research points, what they know of
+     * their opponents and the actions on offer.
+     *
+     * @param player: the Player of the human
+     * @param turn: the turn about to be played
+     */
+    public void showTurn(Player player, int turn){
+        screen.setLength(0);
+        appendNews();
+        screen.append("\n------------------------------\n");
+        screen.append("-----------TURN ").append(turn).append("-------------\n");
+        screen.append("------------------------------\n\n");
+
+        player.damageReport(screen);
+
+        screen.append("CURRENT RESEARCH POINTS: ").append(player.getResearchPoints()).append('\n');
+        player.printOpponentsValues(screen);
+
+        screen.append("\tAvailable actions:\n");
+        if (turn == Player.TURN_NUCLEAR_AVAILABLE){
+            screen.append("The NUCLEAR option is now available.\n");
+        }
+        if (turn < Player.TURN_NUCLEAR_AVAILABLE){
+            screen.append("\tRESEARCH (0)\t|\tESPIONAGE (1)\t|\tSABOTAGE (2)\n");
+        }else{
+            screen.append("\tRESEARCH (0)\t|\tESPIONAGE (1)\t|\tSABOTAGE (2)\t|\tNUCLEAR (3)\n");
+        }
+
+        if (ansi){
+            redraw();
+        }else{
+            write(screen);
+        }
+    }
+
+    /**
+     * Lists the opponents a human may target.
+     *
+     * @param state: the game
+     * @param seat: the seat of the human
+     */
+    public void showTargets(GameState state, int seat){
+        screen.setLength(0);
+        screen.append("------------------\n");
+        screen.append("AVAILABLE TARGETS:\n");
+        for (int o = 0; o < state.size; o++){
+            if (o != seat){
+                screen.append(state.names[o]).append('\n');
+            }
+        }
+        screen.append("------------------\n");
+        write(screen);
+    }
+
+    /** Gives the whole terminal back to scrolling, once the game is over. */
+    public void finish(){
+        if (scrollTop > 0){
+            screen.setLength(0);
+            screen.append(ESC).append('r').append(ESC).append(rows).append(";1H");
+            write(screen);
+            scrollTop = 0;
+        }
+        shown = null;
+    }
+
+    private void appendNews(){
+        for (String line : news){
+            screen.append(line).append('\n');
+        }
+        news.clear();
+    }
+
+    /**
+     * Brings the turn screen on the terminal up to date, rewriting only
+     * the lines that changed, and clears the region below it. A screen too
+     * tall for the terminal is drawn afresh every turn, and scrolls.
+     */
+    private void redraw(){
+        List<String> lines = new ArrayList<>();
+        int from = 0;
+        for (int x = 0; x < screen.length(); x++){
+            if (screen.charAt(x) == '\n'){
+                lines.add(screen.substring(from, x));
+                from = x + 1;
+            }
+        }
+
+        frame.setLength(0);
+        boolean fits = lines.size() < rows;
+        boolean fresh = shown == null || !fits;
+        if (fresh){
+            frame.append(ESC).append('r').append(ESC).append('H').append(ESC).append("2J");
+            scrollTop = 0;
+        }
+        for (int row = 0; row < lines.size(); row++){
+            String line = lines.get(row);
+            if (fresh || row >= shown.size() || !line.equals(shown.get(row))){
+                frame.append(ESC).append(row + 1).append(";1H").append(line).append(ESC).append('K');
+            }
+        }
+        if (fits && scrollTop != lines.size() + 1){
+            // only the rows below the screen scroll, so prompts never push
+            // it off the terminal
+            scrollTop = lines.size() + 1;
+            frame.append(ESC).append(scrollTop).append(';').append(rows).append('r');
+        }
+        frame.append(ESC).append(lines.size() + 1).append(";1H").append(ESC).append('J');
+
+        shown = fits ? lines : null;
+        write(frame);
+    }
+
+    /** Encodes the text into the reusable buffer and writes it at once. */
+    private void write(CharSequence text){
+        CharBuffer chars = CharBuffer.wrap(text);
+        bytes.clear();
+        encoder.reset();
+        while (true){
+            CoderResult result = encoder.encode(chars, bytes, true);
+            if (result.isOverflow()){
+                ByteBuffer bigger = ByteBuffer.allocate(bytes.capacity() * 2);
+                bytes.flip();
+                bigger.put(bytes);
+                bytes = bigger;
+            }else{
+                break;
+            }
+        }
+        encoder.flush(bytes);
+        out.write(bytes.array(), 0, bytes.position());
+        out.flush();
+    }
+
 }
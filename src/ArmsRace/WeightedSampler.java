@@ -0,0 +1,149 @@
+package ArmsRace;
+
+/**
+ * Draws weighted random choices from a single uniform number each, without
+ * any transcendental math.
+ *
+ * Weights that change with every draw, such as a computer's decision
+ * weights, are sampled straight off a running sum: with a handful of
+ * options, walking them is cheaper than building anything. Weights that
+ * are drawn from many times are better off in an AliasTable, which costs
+ * O(n) to build and O(1) to draw from, however many options it holds.
+ */
+final class WeightedSampler {
+
+    private WeightedSampler(){}
+
+    /**
+     * Chooses an option with probability proportional to its weight.
+     * Options with a weight of zero or less are never chosen.
+     *
+     * @pre: at least one of the weights is positive
+     * @param weights: the weights, indexed by option
+     * @param from: where the options start in weights
+     * @param count: the number of options
+     * @param uniform: a random number in [0, 1)
+     * @return the chosen option, counted from from
+     */
+    static int sample(double[] weights, int from, int count, double uniform){
+        double total = 0;
+        for (int x = from; x < from + count; x++){
+            if (weights[x] > 0){
+                total += weights[x];
+            }
+        }
+        double target = uniform * total;
+        int chosen = -1;
+        for (int x = from; x < from + count; x++){
+            double weight = weights[x];
+            if (weight <= 0){
+                continue;
+            }
+            chosen = x - from;
+            if (target < weight){
+                break;
+            }
+            target -= weight;
+        }
+        // rounding may carry the target past the last positive weight
+        return chosen;
+    }
+
+    /**
+     * A Walker alias table, built with Vose's method. Every column holds an
+     * option and the probability of keeping it, and otherwise an alias to
+     * hand the draw to; a draw picks a column with the integer part of a
+     * scaled uniform number, and decides between the two with the
+     * fractional part.
+     */
+    static final class AliasTable {
+
+        private final int size;
+        private final double[] keep;
+        private final int[] alias;
+
+        /**
+         * Constructor. Options with a weight of zero or less are never
+         * chosen.
+         *
+         * @param weights: the weights, indexed by option
+         * @param count: the number of options, taken from the start of
+         *      weights
+         */
+        AliasTable(double[] weights, int count){
+            if (count < 1){
+                throw new IllegalArgumentException("An alias table needs at least one option.");
+            }
+            this.size = count;
+            this.keep = new double[count];
+            this.alias = new int[count];
+
+            double total = 0;
+            for (int x = 0; x < count; x++){
+                if (weights[x] > 0){
+                    total += weights[x];
+                }
+            }
+            if (!(total > 0)){
+                throw new IllegalArgumentException("At least one weight must be positive.");
+            }
+
+            // columns below and above the average weight, as stacks
+            double[] scaled = new double[count];
+            int[] small = new int[count];
+            int[] large = new int[count];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int x = 0; x < count; x++){
+                scaled[x] = weights[x] > 0 ? weights[x] * count / total : 0;
+                if (scaled[x] < 1){
+                    small[smallCount++] = x;
+                }else{
+                    large[largeCount++] = x;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0){
+                int less = small[--smallCount];
+                int more = large[--largeCount];
+                keep[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] = (scaled[more] + scaled[less]) - 1;
+                if (scaled[more] < 1){
+                    small[smallCount++] = more;
+                }else{
+                    large[largeCount++] = more;
+                }
+            }
+            // whatever is left is full, give or take rounding
+            while (largeCount > 0){
+                int x = large[--largeCount];
+                keep[x] = 1;
+                alias[x] = x;
+            }
+            while (smallCount > 0){
+                int x = small[--smallCount];
+                keep[x] = 1;
+                alias[x] = x;
+            }
+        }
+
+        /**
+         * Chooses an option with probability proportional to its weight.
+         *
+         * @param uniform: a random number in [0, 1)
+         * @return the chosen option
+         */
+        int sample(double uniform){
+            double scaled = uniform * size;
+            int column = Math.min((int) scaled, size - 1);
+            return scaled - column < keep[column] ? column : alias[column];
+        }
+
+        /** Returns the number of options. */
+        int size(){
+            return size;
+        }
+
+    }
+
+}
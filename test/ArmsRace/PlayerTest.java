@@ -0,0 +1,56 @@
+package ArmsRace;
+
+import java.util.Arrays;
+
+/**
+ * Checks that forcing a move on a copy of the game, as MctsStrategy does to
+ * play out its candidate moves, leaves the Player's knowledge of its
+ * opponents as it was when the move was chosen.
+ *
+ * Build and run from the repository root:
+ *
+ *      javac -d out src/ArmsRace/*.java test/ArmsRace/*.java
+ *      java -cp out ArmsRace.PlayerTest
+ */
+public class PlayerTest {
+
+    public static void main(String[] args){
+        int checked = 0;
+        for (long seed = 1; seed <= 50; seed++){
+            Simulation sim = new Simulation(Arrays.asList("A", "B", "C", "D", "E"), seed);
+            for (int turn = 0; turn < 6; turn++){
+                sim.playTurn();
+            }
+            if (sim.getState().getMaxResearchPoints() >= Model.RESEARCH_TARGET){
+                continue;
+            }
+            for (int seat = 0; seat < sim.getState().size; seat++){
+                forcedMoveKeepsThreats(sim.getState(), seat);
+                checked++;
+            }
+        }
+        if (checked == 0){
+            throw new IllegalStateException("No game was still running to check.");
+        }
+        System.out.println("PlayerTest: " + checked + " forced moves kept their threats.");
+    }
+
+    private static void forcedMoveKeepsThreats(GameState state, int seat){
+        GameState copy = state.copy();
+        int[] lastKnown = new int[copy.size];
+        int[] before = new int[copy.size];
+        int[] after = new int[copy.size];
+        copy.knowledge.getRow(seat, lastKnown, before);
+
+        Choice move = new Choice();
+        move.setDecisions(Model.Decision.RESEARCH, Model.Decision.RESEARCH);
+        copy.players[seat].forceDecision(move, copy.turn + 1);
+
+        copy.knowledge.getRow(seat, lastKnown, after);
+        if (!Arrays.equals(before, after)){
+            throw new IllegalStateException(String.format("Seat %d of game %d: threats %s became %s.",
+                    seat, state.seed, Arrays.toString(before), Arrays.toString(after)));
+        }
+    }
+
+}
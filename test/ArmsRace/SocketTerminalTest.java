@@ -0,0 +1,71 @@
+package ArmsRace;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Checks that what a human types after a deadline never answers the next
+ * prompt: neither the rest of a word cut off by the deadline, nor words
+ * that arrive while the turn is being resolved.
+ *
+ * Build and run from the repository root:
+ *
+ *      javac -d out src/ArmsRace/*.java test/ArmsRace/*.java
+ *      java -cp out ArmsRace.SocketTerminalTest
+ */
+public class SocketTerminalTest {
+
+    private static final long TIMEOUT_NANOS = 100 * 1000000L;
+
+    public static void main(String[] args) throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket human = new Socket(server.getInetAddress(), server.getLocalPort());
+             SocketTerminal terminal = new SocketTerminal(server.accept())){
+            OutputStream keys = human.getOutputStream();
+
+            // a word cut off by the deadline, finished too late
+            type(keys, "1");
+            expect(terminal.next(System.nanoTime() + TIMEOUT_NANOS), null);
+            type(keys, "2 3\n");
+            settle();
+            terminal.discardInput();
+            type(keys, "2\n");
+            expect(terminal.next(System.nanoTime() + TIMEOUT_NANOS * 10), "2");
+
+            // whole words typed after the deadline
+            expect(terminal.next(System.nanoTime() + TIMEOUT_NANOS), null);
+            type(keys, "3\nAngola\n");
+            settle();
+            terminal.discardInput();
+            type(keys, "1\n");
+            expect(terminal.next(System.nanoTime() + TIMEOUT_NANOS * 10), "1");
+
+            // input in time is kept
+            type(keys, "2 Angola\n");
+            expect(terminal.next(Terminal.NO_DEADLINE), "2");
+            expect(terminal.next(Terminal.NO_DEADLINE), "Angola");
+        }
+        System.out.println("SocketTerminalTest: late input was ignored.");
+    }
+
+    private static void type(OutputStream keys, String text) throws IOException {
+        keys.write(text.getBytes(StandardCharsets.US_ASCII));
+        keys.flush();
+    }
+
+    /** Gives late input time to arrive, as resolving a turn would. */
+    private static void settle() throws InterruptedException {
+        Thread.sleep(TIMEOUT_NANOS / 1000000);
+    }
+
+    private static void expect(String word, String expected){
+        if (word == null ? expected != null : !word.equals(expected)){
+            throw new IllegalStateException("Read " + word + " instead of " + expected + ".");
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package ArmsRace;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks that weighing every computer before drawing any of their
+ * decisions plays the same game as letting each computer choose in turn.
+ *
+ * Build and run from the repository root:
+ *
+ *      javac -d out src/ArmsRace/*.java test/ArmsRace/*.java
+ *      java -cp out ArmsRace.TurnResolverTest
+ */
+public class TurnResolverTest {
+
+    /** The default heuristic, without its batch hook. */
+    private static final class Unbatched implements Strategy {
+
+        private final Strategy strategy = new HeuristicStrategy();
+
+        @Override
+        public void choose(GameView view, Choice choice){
+            strategy.choose(view, choice);
+        }
+
+    }
+
+    public static void main(String[] args){
+        List<String> names = Arrays.asList("A", "B", "C", "D", "E", "F");
+        for (long seed = 1; seed <= 200; seed++){
+            Simulation batched = new Simulation(names, seed);
+            Simulation unbatched = new Simulation(names, seed);
+            for (int seat = 0; seat < names.size(); seat++){
+                unbatched.setStrategy(seat, new Unbatched());
+            }
+            String one = describe(batched.run());
+            String two = describe(unbatched.run());
+            if (!one.equals(two)){
+                throw new IllegalStateException("Game " + seed + " went " + one + " batched, but " + two + " not.");
+            }
+        }
+        System.out.println("TurnResolverTest: 200 batched games played as unbatched.");
+    }
+
+    private static String describe(SimulationResult result){
+        int[] points = new int[result.getNumPlayers()];
+        for (int seat = 0; seat < points.length; seat++){
+            points[seat] = result.getResearchPoints(seat);
+        }
+        return result.getTurns() + " turns " + Arrays.toString(points);
+    }
+
+}
@@ -0,0 +1,79 @@
+package ArmsRace;
+
+/**
+ * Checks that WeightedSampler.sample() and AliasTable choose every option
+ * in proportion to its weight, and never choose one without weight. The
+ * uniform numbers are swept evenly over [0, 1), so the proportions come
+ * out to within the width of a step.
+ *
+ * Build and run from the repository root:
+ *
+ *      javac -d out src/ArmsRace/*.java test/ArmsRace/*.java
+ *      java -cp out ArmsRace.WeightedSamplerTest
+ */
+public class WeightedSamplerTest {
+
+    private static final int STEPS = 1 << 20;
+
+    public static void main(String[] args){
+        double[][] cases = {
+                {9.0, 4.0, 6.0, 1.0},
+                {1.0},
+                {0.0, 3.0, 0.0, 1.0},
+                {-2.0, 1.0, 1.0, 1.0, 5.0},
+                {1e-9, 1.0, 1e9},
+        };
+        for (double[] weights : cases){
+            checkSample(weights);
+            checkAliasTable(weights);
+        }
+        checkRejected(new double[]{0.0, -1.0});
+        checkRejected(new double[0]);
+        System.out.println("WeightedSamplerTest: " + cases.length + " sets of weights drawn in proportion.");
+    }
+
+    private static void checkSample(double[] weights){
+        int[] counts = new int[weights.length];
+        for (int step = 0; step < STEPS; step++){
+            counts[WeightedSampler.sample(weights, 0, weights.length, (double) step / STEPS)]++;
+        }
+        checkProportions("sample()", weights, counts);
+    }
+
+    private static void checkAliasTable(double[] weights){
+        WeightedSampler.AliasTable table = new WeightedSampler.AliasTable(weights, weights.length);
+        if (table.size() != weights.length){
+            throw new IllegalStateException("The table holds " + table.size() + " options, not " + weights.length);
+        }
+        int[] counts = new int[weights.length];
+        for (int step = 0; step < STEPS; step++){
+            counts[table.sample((double) step / STEPS)]++;
+        }
+        checkProportions("AliasTable", weights, counts);
+    }
+
+    private static void checkProportions(String sampler, double[] weights, int[] counts){
+        double total = 0;
+        for (double weight : weights){
+            total += Math.max(0, weight);
+        }
+        for (int x = 0; x < weights.length; x++){
+            double expected = Math.max(0, weights[x]) / total;
+            double actual = (double) counts[x] / STEPS;
+            if (weights[x] <= 0 ? counts[x] != 0 : Math.abs(actual - expected) > 1e-4 + 2.0 * weights.length / STEPS){
+                throw new IllegalStateException(String.format("%s chose option %d of %s %.6f of the time, not %.6f.",
+                        sampler, x, java.util.Arrays.toString(weights), actual, expected));
+            }
+        }
+    }
+
+    private static void checkRejected(double[] weights){
+        try {
+            new WeightedSampler.AliasTable(weights, weights.length);
+        } catch (IllegalArgumentException e){
+            return;
+        }
+        throw new IllegalStateException("An alias table of " + java.util.Arrays.toString(weights) + " was built.");
+    }
+
+}